@@ -0,0 +1,19 @@
+package com.horstmann.java8.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks whose names match the first argument, or all of them, and reports GC allocation rates next to the timings.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+	Options options = new OptionsBuilder().include(args.length > 0 ? args[0] : BenchmarkRunner.class.getPackage().getName()).addProfiler(GCProfiler.class)
+		.build();
+	new Runner(options).run();
+    }
+}
@@ -0,0 +1,83 @@
+package com.horstmann.java8.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.horstmann.java8.ArrayList2;
+import com.horstmann.java8.Collection2;
+import com.horstmann.java8.LinkedList2;
+
+/**
+ * {@link Collection2#forEachIf} and its relatives on the node-based {@link LinkedList2} and the array-based {@link ArrayList2}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class Collection2Benchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int size;
+
+    private LinkedList2<Integer> linked;
+    private ArrayList2<Integer> array;
+
+    @Setup
+    public void setUp() {
+	linked = new LinkedList2<>();
+	array = new ArrayList2<>(size);
+	for (int i = 0; i < size; i++) {
+	    linked.add(i);
+	    array.add(i);
+	}
+    }
+
+    @Benchmark
+    public void linkedForEachIf(Blackhole blackhole) {
+	linked.forEachIf(blackhole::consume, x -> x % 3 == 0);
+    }
+
+    @Benchmark
+    public void arrayForEachIf(Blackhole blackhole) {
+	array.forEachIf(blackhole::consume, x -> x % 3 == 0);
+    }
+
+    @Benchmark
+    public long linkedCountIf() {
+	return linked.countIf(x -> x % 3 == 0);
+    }
+
+    @Benchmark
+    public long arrayCountIf() {
+	return array.countIf(x -> x % 3 == 0);
+    }
+
+    @Benchmark
+    public long linkedParallelForEachIf() {
+	LongAdder sum = new LongAdder();
+	linked.parallelForEachIf(sum::add, x -> x % 3 == 0);
+	return sum.sum();
+    }
+
+    @Benchmark
+    public long arrayParallelForEachIf() {
+	LongAdder sum = new LongAdder();
+	array.parallelForEachIf(sum::add, x -> x % 3 == 0);
+	return sum.sum();
+    }
+}
@@ -0,0 +1,41 @@
+package com.horstmann.java8.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Deterministic synthetic text, so benchmark inputs of any size can be generated without shipping data files.
+ */
+class Corpus {
+
+    /**
+     * Returns size words of 1 to 16 lowercase letters, shorter words being more frequent, as in natural text.
+     */
+    static String[] words(int size) {
+	Random random = new Random(42);
+	String[] words = new String[size];
+	char[] buffer = new char[16];
+	for (int i = 0; i < size; i++) {
+	    int length = 1 + Math.min(random.nextInt(8) + random.nextInt(8) + random.nextInt(2), 15);
+	    for (int j = 0; j < length; j++) {
+		buffer[j] = (char) ('a' + random.nextInt(26));
+	    }
+	    words[i] = new String(buffer, 0, length);
+	}
+	return words;
+    }
+
+    /**
+     * Returns the words of {@link #words(int)} joined by spaces until the text has length characters.
+     */
+    static String text(int length) {
+	StringBuilder builder = new StringBuilder(length + 16);
+	for (String word : words(length / 4 + 1)) {
+	    if (builder.length() >= length) {
+		break;
+	    }
+	    builder.append(word).append(' ');
+	}
+	builder.setLength(length);
+	return builder.toString();
+    }
+}
@@ -0,0 +1,118 @@
+package com.horstmann.java8.benchmarks;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.horstmann.java8.Streams;
+
+/**
+ * Hot paths of {@link Streams}, each over size elements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class StreamsBenchmark {
+
+    private static final long A = 25214903917L;
+    private static final long C = 11L;
+    private static final long M = 1L << 48;
+
+    @Param({ "1000", "100000", "1000000" })
+    public int size;
+
+    private List<Integer> numbers;
+    private String text;
+
+    @Setup
+    public void setUp() {
+	numbers = IntStream.range(0, size).boxed().collect(Collectors.toList());
+	text = Corpus.text(size);
+    }
+
+    @Benchmark
+    public void zip(Blackhole blackhole) {
+	Streams.zip(numbers.stream(), numbers.stream()).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public long zipWith() {
+	return Streams.zipWith(numbers.stream(), numbers.stream(), Integer::sum).mapToLong(Integer::longValue).sum();
+    }
+
+    @Benchmark
+    public long zipWithParallel() {
+	return Streams.zipWith(numbers.parallelStream(), numbers.stream(), Integer::sum).mapToLong(Integer::longValue).sum();
+    }
+
+    @Benchmark
+    public void characterStream(Blackhole blackhole) {
+	Streams.characterStream(text).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public long chars() {
+	return Streams.chars(text).filter(Character::isLetter).count();
+    }
+
+    @Benchmark
+    public long charsParallel() {
+	return Streams.chars(text).parallel().filter(Character::isLetter).count();
+    }
+
+    @Benchmark
+    public long randomLongs() {
+	return Streams.randomLongs(42L, A, C, M).limit(size).mapToLong(Long::longValue).sum();
+    }
+
+    @Benchmark
+    public long linearCongruential() {
+	return Streams.linearCongruential(size, 42L, A, C, M).sum();
+    }
+
+    @Benchmark
+    public long linearCongruentialParallel() {
+	return Streams.linearCongruential(size, 42L, A, C, M).parallel().sum();
+    }
+
+    /**
+     * A filtered stream does not know its size, so isFinite traverses all size elements.
+     */
+    @Benchmark
+    public boolean isFiniteFiltered() {
+	return Streams.isFinite(numbers.stream().filter(x -> x % 3 != 0));
+    }
+
+    @Benchmark
+    public boolean isFiniteIterator() {
+	return Streams.isFinite(StreamSupport.stream(Spliterators.spliteratorUnknownSize(numbers.iterator(), Spliterator.ORDERED), false));
+    }
+
+    /**
+     * Spends the whole element budget, one element per eight bytes of heap, independent of size.
+     */
+    @Benchmark
+    public boolean isFiniteInfinite() {
+	return Streams.isFinite(Streams.randomLongs(42L, A, C, M));
+    }
+}
@@ -0,0 +1,64 @@
+package com.horstmann.java8.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.horstmann.java8.FunctionEx;
+import com.horstmann.java8.UncheckMode;
+
+/**
+ * Cost of each {@link UncheckMode} when the wrapped function throws a checked exception, and when it returns normally.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class UncheckBenchmark {
+
+    private static final IOException FAILURE = new IOException("disk full");
+
+    @Param({ "WRAP", "LIGHTWEIGHT", "SNEAKY" })
+    public UncheckMode mode;
+
+    private Function<String, Integer> unchecked;
+
+    @Setup
+    public void setUp() {
+	FunctionEx<String, Integer> parse = s -> {
+	    if (s.isEmpty()) {
+		throw FAILURE;
+	    }
+	    return s.length();
+	};
+	unchecked = FunctionEx.uncheck(parse, mode);
+    }
+
+    @Benchmark
+    public Object failing() {
+	try {
+	    return unchecked.apply("");
+	} catch (Exception e) {
+	    return e;
+	}
+    }
+
+    @Benchmark
+    public Object succeeding() {
+	return unchecked.apply("abc");
+    }
+}
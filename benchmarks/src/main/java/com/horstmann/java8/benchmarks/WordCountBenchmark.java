@@ -0,0 +1,147 @@
+package com.horstmann.java8.benchmarks;
+
+import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.groupingByConcurrent;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.horstmann.java8.Collectors2;
+import com.horstmann.java8.ParallelArrays;
+import com.horstmann.java8.WordFrequencies;
+
+/**
+ * The word counting strategies of StreamsTest, from the hand-made thread segments of test1 to the library collectors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class WordCountBenchmark {
+
+    @Param({ "10000", "1000000" })
+    public int size;
+
+    private String[] words;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+	words = Corpus.words(size);
+	file = Files.createTempFile("words", ".txt");
+	Files.write(file, String.join(" ", words).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+	Files.delete(file);
+    }
+
+    /**
+     * Long words counted as in StreamsTest.test1: a fresh thread pool with one segment per processor, awaited by spinning.
+     */
+    @Benchmark
+    public long segmentedThreads() {
+	int cores = Runtime.getRuntime().availableProcessors();
+	LongAdder count = new LongAdder();
+	ExecutorService executorService = Executors.newFixedThreadPool(cores);
+	for (int i = 0; i < cores; i++) {
+	    int from = i * words.length / cores;
+	    int to = i + 1 < cores ? (i + 1) * words.length / cores : words.length;
+	    executorService.submit(() -> {
+		for (int j = from; j < to; j++) {
+		    if (words[j].length() > 12) {
+			count.increment();
+		    }
+		}
+	    });
+	}
+	executorService.shutdown();
+	while (!executorService.isTerminated()) {
+	    // Wait for threads to complete their job
+	}
+	return count.sum();
+    }
+
+    @Benchmark
+    public long sequentialStream() {
+	return Stream.of(words).filter(w -> w.length() > 12).count();
+    }
+
+    @Benchmark
+    public long parallelStream() {
+	return Stream.of(words).parallel().unordered().filter(w -> w.length() > 12).count();
+    }
+
+    @Benchmark
+    public long parallelArrays() {
+	return ParallelArrays.countIf(words, w -> w.length() > 12);
+    }
+
+    /**
+     * Short words counted by length as in StreamsTest.test12, on a shared AtomicInteger array.
+     */
+    @Benchmark
+    public AtomicInteger[] atomicIntegerArray() {
+	AtomicInteger[] shortWords = Stream.generate(AtomicInteger::new).limit(12).toArray(AtomicInteger[]::new);
+	Stream.of(words).parallel().forEach(s -> {
+	    if (s.length() < 12) {
+		shortWords[s.length()].getAndIncrement();
+	    }
+	});
+	return shortWords;
+    }
+
+    /**
+     * Words counted by length as in StreamsTest.test13, with boxed keys and counts.
+     */
+    @Benchmark
+    public ConcurrentMap<Integer, Long> groupingByConcurrentCounting() {
+	return Stream.of(words).parallel().collect(groupingByConcurrent(String::length, counting()));
+    }
+
+    @Benchmark
+    public long[] histogram() {
+	return Stream.of(words).parallel().collect(Collectors2.histogram(String::length, 17));
+    }
+
+    /**
+     * Word frequencies counted as in StreamsTest.test28, with a String and boxed count per distinct word.
+     */
+    @Benchmark
+    public ConcurrentMap<String, Long> groupingByConcurrentWords() {
+	return Stream.of(words).parallel().collect(groupingByConcurrent(w -> w, counting()));
+    }
+
+    /**
+     * Word frequencies of the same words read from a mapped file into off-heap tables.
+     */
+    @Benchmark
+    public WordFrequencies wordFrequencies() throws IOException {
+	return WordFrequencies.of(file);
+    }
+}
@@ -0,0 +1,730 @@
+package com.horstmann.java8;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Array-backed {@link Collection2} that can replace {@link LinkedList2}: a list and a deque stored in a circular array, so both ends take amortized O(1)
+ * appends and removals while indexed access and bulk traversal read consecutive memory.
+ *
+ * <p>
+ * {@link #forEachIf(Consumer, Predicate)} and {@link #forEach(Consumer)} are plain loops over the backing array and allocate nothing per call.
+ * </p>
+ */
+public class ArrayList2<T> extends AbstractList<T> implements Collection2<T>, Deque<T>, RandomAccess, Serializable {
+
+    private static final long serialVersionUID = -1390405123541087219L;
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * Circular buffer whose length is a power of two; elements occupy size slots starting at head.
+     */
+    private Object[] elements;
+    private int head;
+    private int size;
+
+    public ArrayList2() {
+	elements = new Object[DEFAULT_CAPACITY];
+    }
+
+    public ArrayList2(int initialCapacity) {
+	if (initialCapacity < 0) {
+	    throw new IllegalArgumentException("Capacity must not be negative: " + initialCapacity);
+	}
+	elements = new Object[capacityFor(initialCapacity)];
+    }
+
+    public ArrayList2(Collection<? extends T> c) {
+	this(c.size());
+	addAll(c);
+    }
+
+    private static int capacityFor(int minCapacity) {
+	if (minCapacity > MAX_CAPACITY) {
+	    throw new OutOfMemoryError("Required capacity too large: " + minCapacity);
+	}
+	return Math.max(Integer.highestOneBit(Math.max(minCapacity - 1, 1)) << 1, DEFAULT_CAPACITY);
+    }
+
+    private int slot(int index) {
+	return (head + index) & (elements.length - 1);
+    }
+
+    private void ensureCapacity(int minCapacity) {
+	if (minCapacity <= elements.length) {
+	    return;
+	}
+	Object[] grown = new Object[capacityFor(minCapacity)];
+	copyTo(grown);
+	elements = grown;
+	head = 0;
+    }
+
+    private void copyTo(Object[] target) {
+	int firstLength = Math.min(size, elements.length - head);
+	System.arraycopy(elements, head, target, 0, firstLength);
+	System.arraycopy(elements, 0, target, firstLength, size - firstLength);
+    }
+
+    private void checkIndex(int index, int bound) {
+	if (index < 0 || index >= bound) {
+	    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+	}
+    }
+
+    @Override
+    public int size() {
+	return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+	checkIndex(index, size);
+	return (T) elements[slot(index)];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T set(int index, T element) {
+	checkIndex(index, size);
+	int slot = slot(index);
+	T old = (T) elements[slot];
+	elements[slot] = element;
+	return old;
+    }
+
+    @Override
+    public boolean add(T element) {
+	addLast(element);
+	return true;
+    }
+
+    /**
+     * Inserts element at index, shifting whichever side of the list is shorter.
+     */
+    @Override
+    public void add(int index, T element) {
+	checkIndex(index, size + 1);
+	ensureCapacity(size + 1);
+	int mask = elements.length - 1;
+	if (index < size / 2) {
+	    head = (head - 1) & mask;
+	    for (int i = 0; i < index; i++) {
+		elements[slot(i)] = elements[slot(i + 1)];
+	    }
+	} else {
+	    for (int i = size; i > index; i--) {
+		elements[slot(i)] = elements[slot(i - 1)];
+	    }
+	}
+	elements[slot(index)] = element;
+	size++;
+	modCount++;
+    }
+
+    /**
+     * Removes the element at index, shifting whichever side of the list is shorter.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T remove(int index) {
+	checkIndex(index, size);
+	T old = (T) elements[slot(index)];
+	if (index < size / 2) {
+	    for (int i = index; i > 0; i--) {
+		elements[slot(i)] = elements[slot(i - 1)];
+	    }
+	    elements[head] = null;
+	    head = (head + 1) & (elements.length - 1);
+	} else {
+	    for (int i = index; i < size - 1; i++) {
+		elements[slot(i)] = elements[slot(i + 1)];
+	    }
+	    elements[slot(size - 1)] = null;
+	}
+	size--;
+	modCount++;
+	return old;
+    }
+
+    @Override
+    public void clear() {
+	for (int i = 0; i < size; i++) {
+	    elements[slot(i)] = null;
+	}
+	head = 0;
+	size = 0;
+	modCount++;
+    }
+
+    @Override
+    public Object[] toArray() {
+	Object[] array = new Object[size];
+	copyTo(array);
+	return array;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super T> action) {
+	Objects.requireNonNull(action);
+	int expectedModCount = modCount;
+	Object[] es = elements;
+	int end = Math.min(head + size, es.length);
+	for (int i = head; i < end; i++) {
+	    action.accept((T) es[i]);
+	}
+	for (int i = 0, wrapped = size - (end - head); i < wrapped; i++) {
+	    action.accept((T) es[i]);
+	}
+	if (modCount != expectedModCount) {
+	    throw new ConcurrentModificationException();
+	}
+    }
+
+    /**
+     * Applies action to each element for which filter returns true, in a single loop over the backing array.
+     *
+     * @param action
+     *            - action to be applied
+     * @param filter
+     *            - filter to be matched
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachIf(Consumer<T> action, Predicate<T> filter) {
+	int expectedModCount = modCount;
+	Object[] es = elements;
+	int end = Math.min(head + size, es.length);
+	for (int i = head; i < end; i++) {
+	    T e = (T) es[i];
+	    if (filter.test(e)) {
+		action.accept(e);
+	    }
+	}
+	for (int i = 0, wrapped = size - (end - head); i < wrapped; i++) {
+	    T e = (T) es[i];
+	    if (filter.test(e)) {
+		action.accept(e);
+	    }
+	}
+	if (modCount != expectedModCount) {
+	    throw new ConcurrentModificationException();
+	}
+    }
+
+    /**
+     * Removes all elements matching filter. The filter is applied to every element before any element is moved, so a filter that throws leaves the list
+     * unchanged; the matching elements are then removed in one compacting pass.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean removeIf(Predicate<? super T> filter) {
+	Objects.requireNonNull(filter);
+	int expectedModCount = modCount;
+	BitSet matching = new BitSet(size);
+	for (int i = 0; i < size; i++) {
+	    if (filter.test((T) elements[slot(i)])) {
+		matching.set(i);
+	    }
+	}
+	if (modCount != expectedModCount) {
+	    throw new ConcurrentModificationException();
+	}
+	if (matching.isEmpty()) {
+	    return false;
+	}
+	int kept = 0;
+	for (int i = 0; i < size; i++) {
+	    if (!matching.get(i)) {
+		elements[slot(kept++)] = elements[slot(i)];
+	    }
+	}
+	for (int i = kept; i < size; i++) {
+	    elements[slot(i)] = null;
+	}
+	size = kept;
+	modCount++;
+	return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public long countIf(Predicate<T> filter) {
+	int expectedModCount = modCount;
+	long count = 0;
+	for (int i = 0; i < size; i++) {
+	    if (filter.test((T) elements[slot(i)])) {
+		count++;
+	    }
+	}
+	if (modCount != expectedModCount) {
+	    throw new ConcurrentModificationException();
+	}
+	return count;
+    }
+
+    /**
+     * Removes and returns all elements matching filter, as {@link #removeIf(Predicate)} does; a filter that throws leaves the list unchanged.
+     */
+    @Override
+    public List<T> removeAndCollectIf(Predicate<T> filter) {
+	List<T> removed = new ArrayList<>();
+	removeIf(element -> filter.test(element) && removed.add(element));
+	return removed;
+    }
+
+    /**
+     * Returns a late-binding spliterator that splits the index range in halves. It reports SIZED and SUBSIZED, so parallel streams split it evenly and know
+     * the size of every part.
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+	return new IndexSpliterator(0, -1, 0);
+    }
+
+    private final class IndexSpliterator implements Spliterator<T> {
+	private int index;
+	private int fence;
+	private int expectedModCount;
+
+	IndexSpliterator(int index, int fence, int expectedModCount) {
+	    this.index = index;
+	    this.fence = fence;
+	    this.expectedModCount = expectedModCount;
+	}
+
+	/**
+	 * Binds the spliterator to the current size on first use.
+	 */
+	private int fence() {
+	    if (fence < 0) {
+		expectedModCount = modCount;
+		fence = size;
+	    }
+	    return fence;
+	}
+
+	@Override
+	public Spliterator<T> trySplit() {
+	    int hi = fence();
+	    int lo = index;
+	    int mid = (lo + hi) >>> 1;
+	    return lo >= mid ? null : new IndexSpliterator(lo, index = mid, expectedModCount);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean tryAdvance(Consumer<? super T> action) {
+	    Objects.requireNonNull(action);
+	    if (index >= fence()) {
+		return false;
+	    }
+	    action.accept((T) elements[slot(index++)]);
+	    if (modCount != expectedModCount) {
+		throw new ConcurrentModificationException();
+	    }
+	    return true;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void forEachRemaining(Consumer<? super T> action) {
+	    Objects.requireNonNull(action);
+	    int hi = fence();
+	    Object[] es = elements;
+	    int mask = es.length - 1;
+	    for (int i = index; i < hi; i++) {
+		action.accept((T) es[(head + i) & mask]);
+	    }
+	    index = hi;
+	    if (modCount != expectedModCount) {
+		throw new ConcurrentModificationException();
+	    }
+	}
+
+	@Override
+	public long estimateSize() {
+	    return fence() - index;
+	}
+
+	@Override
+	public int characteristics() {
+	    return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+	}
+    }
+
+    @Override
+    public void addFirst(T element) {
+	ensureCapacity(size + 1);
+	head = (head - 1) & (elements.length - 1);
+	elements[head] = element;
+	size++;
+	modCount++;
+    }
+
+    @Override
+    public void addLast(T element) {
+	ensureCapacity(size + 1);
+	elements[slot(size)] = element;
+	size++;
+	modCount++;
+    }
+
+    @Override
+    public boolean offerFirst(T element) {
+	addFirst(element);
+	return true;
+    }
+
+    @Override
+    public boolean offerLast(T element) {
+	addLast(element);
+	return true;
+    }
+
+    @Override
+    public T removeFirst() {
+	if (size == 0) {
+	    throw new NoSuchElementException();
+	}
+	return pollFirst();
+    }
+
+    @Override
+    public T removeLast() {
+	if (size == 0) {
+	    throw new NoSuchElementException();
+	}
+	return pollLast();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T pollFirst() {
+	if (size == 0) {
+	    return null;
+	}
+	T first = (T) elements[head];
+	elements[head] = null;
+	head = (head + 1) & (elements.length - 1);
+	size--;
+	modCount++;
+	return first;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T pollLast() {
+	if (size == 0) {
+	    return null;
+	}
+	int last = slot(size - 1);
+	T element = (T) elements[last];
+	elements[last] = null;
+	size--;
+	modCount++;
+	return element;
+    }
+
+    @Override
+    public T getFirst() {
+	if (size == 0) {
+	    throw new NoSuchElementException();
+	}
+	return peekFirst();
+    }
+
+    @Override
+    public T getLast() {
+	if (size == 0) {
+	    throw new NoSuchElementException();
+	}
+	return peekLast();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T peekFirst() {
+	return size == 0 ? null : (T) elements[head];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T peekLast() {
+	return size == 0 ? null : (T) elements[slot(size - 1)];
+    }
+
+    @Override
+    public boolean removeFirstOccurrence(Object o) {
+	int index = indexOf(o);
+	if (index < 0) {
+	    return false;
+	}
+	remove(index);
+	return true;
+    }
+
+    @Override
+    public boolean removeLastOccurrence(Object o) {
+	int index = lastIndexOf(o);
+	if (index < 0) {
+	    return false;
+	}
+	remove(index);
+	return true;
+    }
+
+    @Override
+    public boolean offer(T element) {
+	return offerLast(element);
+    }
+
+    @Override
+    public T remove() {
+	return removeFirst();
+    }
+
+    @Override
+    public T poll() {
+	return pollFirst();
+    }
+
+    @Override
+    public T element() {
+	return getFirst();
+    }
+
+    @Override
+    public T peek() {
+	return peekFirst();
+    }
+
+    @Override
+    public void push(T element) {
+	addFirst(element);
+    }
+
+    @Override
+    public T pop() {
+	return removeFirst();
+    }
+
+    @Override
+    public Iterator<T> descendingIterator() {
+	ListIterator<T> iterator = listIterator(size);
+	return new Iterator<T>() {
+	    @Override
+	    public boolean hasNext() {
+		return iterator.hasPrevious();
+	    }
+
+	    @Override
+	    public T next() {
+		return iterator.previous();
+	    }
+
+	    @Override
+	    public void remove() {
+		iterator.remove();
+	    }
+	};
+    }
+
+    /**
+     * Returns a view of this list in reverse order. Changes to either show through the other, and the view is a list and a deque, so the return type
+     * overrides the reversed() methods of both List and Deque from Java 21 on.
+     *
+     * @return reverse-ordered view of this list
+     */
+    public Reversed reversed() {
+	return new Reversed();
+    }
+
+    /**
+     * Reverse-ordered view of the enclosing list. Index i of the view is index size() - 1 - i of the list, and the first and last ends of the deque are
+     * swapped; every operation is carried out on the list.
+     */
+    public final class Reversed extends AbstractList<T> implements Deque<T>, RandomAccess {
+
+	private int index(int i) {
+	    return size - 1 - i;
+	}
+
+	@Override
+	public int size() {
+	    return size;
+	}
+
+	@Override
+	public T get(int index) {
+	    checkIndex(index, size);
+	    return ArrayList2.this.get(index(index));
+	}
+
+	@Override
+	public T set(int index, T element) {
+	    checkIndex(index, size);
+	    return ArrayList2.this.set(index(index), element);
+	}
+
+	@Override
+	public boolean add(T element) {
+	    addLast(element);
+	    return true;
+	}
+
+	@Override
+	public void add(int index, T element) {
+	    checkIndex(index, size + 1);
+	    ArrayList2.this.add(size - index, element);
+	}
+
+	@Override
+	public T remove(int index) {
+	    checkIndex(index, size);
+	    return ArrayList2.this.remove(index(index));
+	}
+
+	@Override
+	public void clear() {
+	    ArrayList2.this.clear();
+	}
+
+	@Override
+	public void addFirst(T element) {
+	    ArrayList2.this.addLast(element);
+	}
+
+	@Override
+	public void addLast(T element) {
+	    ArrayList2.this.addFirst(element);
+	}
+
+	@Override
+	public boolean offerFirst(T element) {
+	    return ArrayList2.this.offerLast(element);
+	}
+
+	@Override
+	public boolean offerLast(T element) {
+	    return ArrayList2.this.offerFirst(element);
+	}
+
+	@Override
+	public T removeFirst() {
+	    return ArrayList2.this.removeLast();
+	}
+
+	@Override
+	public T removeLast() {
+	    return ArrayList2.this.removeFirst();
+	}
+
+	@Override
+	public T pollFirst() {
+	    return ArrayList2.this.pollLast();
+	}
+
+	@Override
+	public T pollLast() {
+	    return ArrayList2.this.pollFirst();
+	}
+
+	@Override
+	public T getFirst() {
+	    return ArrayList2.this.getLast();
+	}
+
+	@Override
+	public T getLast() {
+	    return ArrayList2.this.getFirst();
+	}
+
+	@Override
+	public T peekFirst() {
+	    return ArrayList2.this.peekLast();
+	}
+
+	@Override
+	public T peekLast() {
+	    return ArrayList2.this.peekFirst();
+	}
+
+	@Override
+	public boolean removeFirstOccurrence(Object o) {
+	    return ArrayList2.this.removeLastOccurrence(o);
+	}
+
+	@Override
+	public boolean removeLastOccurrence(Object o) {
+	    return ArrayList2.this.removeFirstOccurrence(o);
+	}
+
+	@Override
+	public boolean offer(T element) {
+	    return offerLast(element);
+	}
+
+	@Override
+	public T remove() {
+	    return removeFirst();
+	}
+
+	@Override
+	public T poll() {
+	    return pollFirst();
+	}
+
+	@Override
+	public T element() {
+	    return getFirst();
+	}
+
+	@Override
+	public T peek() {
+	    return peekFirst();
+	}
+
+	@Override
+	public void push(T element) {
+	    addFirst(element);
+	}
+
+	@Override
+	public T pop() {
+	    return removeFirst();
+	}
+
+	@Override
+	public Iterator<T> descendingIterator() {
+	    return ArrayList2.this.iterator();
+	}
+
+	/**
+	 * Returns the enclosing list, which is this view reversed.
+	 *
+	 * @return the list this view reverses
+	 */
+	public ArrayList2<T> reversed() {
+	    return ArrayList2.this;
+	}
+    }
+}
@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.BiConsumer;
+
+public interface BiConsumerEx<T, U> {
+    public void accept(T t, U u) throws Exception;
+
+    /**
+     * Turns f into a {@link BiConsumer} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - consumer to convert exceptions for
+     * @return BiConsumer that does not throw any checked exceptions
+     */
+    public static <T, U> BiConsumer<T, U> uncheck(BiConsumerEx<T, U> f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(BiConsumerEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - consumer to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return BiConsumer that does not declare any checked exceptions
+     */
+    public static <T, U> BiConsumer<T, U> uncheck(BiConsumerEx<T, U> f, UncheckMode mode) {
+	return (t, u) -> {
+	    try {
+		f.accept(t, u);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.BiFunction;
+
+public interface BiFunctionEx<T, U, R> {
+    public R apply(T t, U u) throws Exception;
+
+    /**
+     * Turns f into a {@link BiFunction} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @return BiFunction that does not throw any checked exceptions
+     */
+    public static <T, U, R> BiFunction<T, U, R> uncheck(BiFunctionEx<T, U, R> f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(BiFunctionEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return BiFunction that does not declare any checked exceptions
+     */
+    public static <T, U, R> BiFunction<T, U, R> uncheck(BiFunctionEx<T, U, R> f, UncheckMode mode) {
+	return (t, u) -> {
+	    try {
+		return f.apply(t, u);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.BiPredicate;
+
+public interface BiPredicateEx<T, U> {
+    public boolean test(T t, U u) throws Exception;
+
+    /**
+     * Turns f into a {@link BiPredicate} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - predicate to convert exceptions for
+     * @return BiPredicate that does not throw any checked exceptions
+     */
+    public static <T, U> BiPredicate<T, U> uncheck(BiPredicateEx<T, U> f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(BiPredicateEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - predicate to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return BiPredicate that does not declare any checked exceptions
+     */
+    public static <T, U> BiPredicate<T, U> uncheck(BiPredicateEx<T, U> f, UncheckMode mode) {
+	return (t, u) -> {
+	    try {
+		return f.test(t, u);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
@@ -0,0 +1,107 @@
+package com.horstmann.java8;
+
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Spliterator over the chars or code points of a {@link CharSequence}, reading through {@link CharSequence#charAt(int)} without copying.
+ *
+ * <p>
+ * Splits never fall between the two halves of a surrogate pair. In char mode the spliterator is SIZED and SUBSIZED; in code point mode the size is only an
+ * upper bound because a surrogate pair yields a single element.
+ * </p>
+ */
+class CharSequenceSpliterator implements Spliterator.OfInt {
+
+    private static final int MIN_SPLIT = 1 << 10;
+
+    private final CharSequence sequence;
+    private final boolean codePoints;
+    private int index;
+    private final int fence;
+
+    /**
+     * @param sequence
+     *            - characters to traverse; must not change during traversal
+     * @param codePoints
+     *            - whether to combine surrogate pairs into code points
+     */
+    CharSequenceSpliterator(CharSequence sequence, boolean codePoints) {
+	this(sequence, codePoints, 0, sequence.length());
+    }
+
+    private CharSequenceSpliterator(CharSequence sequence, boolean codePoints, int index, int fence) {
+	this.sequence = sequence;
+	this.codePoints = codePoints;
+	this.index = index;
+	this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+	if (index >= fence) {
+	    return false;
+	}
+	char c = sequence.charAt(index++);
+	if (codePoints && Character.isHighSurrogate(c) && index < fence) {
+	    char low = sequence.charAt(index);
+	    if (Character.isLowSurrogate(low)) {
+		index++;
+		action.accept(Character.toCodePoint(c, low));
+		return true;
+	    }
+	}
+	action.accept(c);
+	return true;
+    }
+
+    @Override
+    public void forEachRemaining(IntConsumer action) {
+	CharSequence s = sequence;
+	int i = index;
+	int hi = fence;
+	index = hi;
+	if (!codePoints) {
+	    for (; i < hi; i++) {
+		action.accept(s.charAt(i));
+	    }
+	    return;
+	}
+	while (i < hi) {
+	    char c = s.charAt(i++);
+	    if (Character.isHighSurrogate(c) && i < hi) {
+		char low = s.charAt(i);
+		if (Character.isLowSurrogate(low)) {
+		    i++;
+		    action.accept(Character.toCodePoint(c, low));
+		    continue;
+		}
+	    }
+	    action.accept(c);
+	}
+    }
+
+    @Override
+    public Spliterator.OfInt trySplit() {
+	int lo = index;
+	if (fence - lo < MIN_SPLIT) {
+	    return null;
+	}
+	int mid = (lo + fence) >>> 1;
+	if (Character.isHighSurrogate(sequence.charAt(mid - 1)) && Character.isLowSurrogate(sequence.charAt(mid))) {
+	    mid++;
+	}
+	index = mid;
+	return new CharSequenceSpliterator(sequence, codePoints, lo, mid);
+    }
+
+    @Override
+    public long estimateSize() {
+	return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+	return codePoints ? ORDERED | NONNULL : ORDERED | SIZED | SUBSIZED | NONNULL;
+    }
+}
@@ -0,0 +1,258 @@
+package com.horstmann.java8;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Spliterator of consecutive chunks of n elements of a source spliterator; only the last chunk may be shorter.
+ *
+ * <p>
+ * Splits keep chunk boundaries where they would be in a sequential traversal. When the source is SUBSIZED, it is split and the prefix borrows the few
+ * elements of the suffix that complete its last chunk; these are kept as a tail traversed after the prefix's source. Otherwise a batch of whole chunks is
+ * copied into an array, which is split off like a SUBSIZED source, with batches growing as in {@link Spliterators.AbstractSpliterator}.
+ * </p>
+ *
+ * @param <S>
+ *            - type of the source spliterator
+ * @param <B>
+ *            - array type holding elements
+ * @param <C>
+ *            - type of the chunks
+ */
+abstract class ChunkSpliterator<S extends Spliterator<?>, B, C> implements Spliterator<C> {
+
+    private static final int BATCH_UNIT = 1 << 10;
+    private static final int MAX_BATCH = 1 << 25;
+
+    private final S source;
+    final int n;
+    private boolean sourceDone;
+    private final B tail;
+    private final int tailLength;
+    private int tailIndex;
+    private int batch;
+
+    ChunkSpliterator(S source, int n, B tail, int tailLength) {
+	this.source = source;
+	this.n = n;
+	this.tail = tail;
+	this.tailLength = tailLength;
+    }
+
+    abstract B newBuffer(int length);
+
+    /**
+     * Advances source by one element, storing it at buffer[index].
+     */
+    abstract boolean pull(S source, B buffer, int index);
+
+    abstract C chunk(B buffer, int length);
+
+    abstract S spliterator(B buffer, int length);
+
+    abstract ChunkSpliterator<S, B, C> create(S source, B tail, int tailLength);
+
+    private boolean pull(B buffer, int index) {
+	if (!sourceDone) {
+	    if (pull(source, buffer, index)) {
+		return true;
+	    }
+	    sourceDone = true;
+	}
+	if (tailIndex < tailLength) {
+	    System.arraycopy(tail, tailIndex++, buffer, index, 1);
+	    return true;
+	}
+	return false;
+    }
+
+    private int fill(B buffer, int length) {
+	int filled = 0;
+	while (filled < length && pull(buffer, filled)) {
+	    filled++;
+	}
+	return filled;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super C> action) {
+	B buffer = newBuffer(n);
+	int length = fill(buffer, n);
+	if (length == 0) {
+	    return false;
+	}
+	action.accept(chunk(buffer, length));
+	return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Spliterator<C> trySplit() {
+	if (sourceDone) {
+	    return null;
+	}
+	if (source.hasCharacteristics(Spliterator.SUBSIZED)) {
+	    S prefix = (S) source.trySplit();
+	    if (prefix == null) {
+		return null;
+	    }
+	    int missing = (int) ((n - prefix.getExactSizeIfKnown() % n) % n);
+	    B borrowed = newBuffer(missing);
+	    return create(prefix, borrowed, fill(borrowed, missing));
+	}
+	long size = Math.min((long) batch + BATCH_UNIT, MAX_BATCH);
+	size = Math.max(size / n, 1) * n;
+	if (size > MAX_BATCH) {
+	    return null;
+	}
+	batch = (int) size;
+	B buffer = newBuffer(batch);
+	int length = fill(buffer, batch);
+	return length == 0 ? null : create(spliterator(buffer, length), null, 0);
+    }
+
+    @Override
+    public long estimateSize() {
+	long size = source.estimateSize();
+	if (size == Long.MAX_VALUE) {
+	    return size;
+	}
+	size += tailLength - tailIndex;
+	return size / n + (size % n == 0 ? 0 : 1);
+    }
+
+    @Override
+    public int characteristics() {
+	return Spliterator.NONNULL | source.characteristics() & (Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED);
+    }
+
+    static class OfRef<T> extends ChunkSpliterator<Spliterator<T>, Object[], List<T>> implements Consumer<T> {
+	private Object[] target;
+	private int targetIndex;
+
+	OfRef(Spliterator<T> source, int n, Object[] tail, int tailLength) {
+	    super(source, n, tail, tailLength);
+	}
+
+	@Override
+	public void accept(T t) {
+	    target[targetIndex] = t;
+	}
+
+	@Override
+	Object[] newBuffer(int length) {
+	    return new Object[length];
+	}
+
+	@Override
+	boolean pull(Spliterator<T> source, Object[] buffer, int index) {
+	    target = buffer;
+	    targetIndex = index;
+	    return source.tryAdvance(this);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	List<T> chunk(Object[] buffer, int length) {
+	    return (List<T>) Arrays.asList(length == buffer.length ? buffer : Arrays.copyOf(buffer, length));
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	Spliterator<T> spliterator(Object[] buffer, int length) {
+	    return (Spliterator<T>) Spliterators.spliterator(buffer, 0, length, Spliterator.ORDERED);
+	}
+
+	@Override
+	ChunkSpliterator<Spliterator<T>, Object[], List<T>> create(Spliterator<T> source, Object[] tail, int tailLength) {
+	    return new OfRef<>(source, n, tail, tailLength);
+	}
+    }
+
+    static class OfInt extends ChunkSpliterator<Spliterator.OfInt, int[], int[]> implements IntConsumer {
+	private int[] target;
+	private int targetIndex;
+
+	OfInt(Spliterator.OfInt source, int n, int[] tail, int tailLength) {
+	    super(source, n, tail, tailLength);
+	}
+
+	@Override
+	public void accept(int value) {
+	    target[targetIndex] = value;
+	}
+
+	@Override
+	int[] newBuffer(int length) {
+	    return new int[length];
+	}
+
+	@Override
+	boolean pull(Spliterator.OfInt source, int[] buffer, int index) {
+	    target = buffer;
+	    targetIndex = index;
+	    return source.tryAdvance((IntConsumer) this);
+	}
+
+	@Override
+	int[] chunk(int[] buffer, int length) {
+	    return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+	}
+
+	@Override
+	Spliterator.OfInt spliterator(int[] buffer, int length) {
+	    return Spliterators.spliterator(buffer, 0, length, Spliterator.ORDERED);
+	}
+
+	@Override
+	ChunkSpliterator<Spliterator.OfInt, int[], int[]> create(Spliterator.OfInt source, int[] tail, int tailLength) {
+	    return new OfInt(source, n, tail, tailLength);
+	}
+    }
+
+    static class OfLong extends ChunkSpliterator<Spliterator.OfLong, long[], long[]> implements LongConsumer {
+	private long[] target;
+	private int targetIndex;
+
+	OfLong(Spliterator.OfLong source, int n, long[] tail, int tailLength) {
+	    super(source, n, tail, tailLength);
+	}
+
+	@Override
+	public void accept(long value) {
+	    target[targetIndex] = value;
+	}
+
+	@Override
+	long[] newBuffer(int length) {
+	    return new long[length];
+	}
+
+	@Override
+	boolean pull(Spliterator.OfLong source, long[] buffer, int index) {
+	    target = buffer;
+	    targetIndex = index;
+	    return source.tryAdvance((LongConsumer) this);
+	}
+
+	@Override
+	long[] chunk(long[] buffer, int length) {
+	    return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+	}
+
+	@Override
+	Spliterator.OfLong spliterator(long[] buffer, int length) {
+	    return Spliterators.spliterator(buffer, 0, length, Spliterator.ORDERED);
+	}
+
+	@Override
+	ChunkSpliterator<Spliterator.OfLong, long[], long[]> create(Spliterator.OfLong source, long[] tail, int tailLength) {
+	    return new OfLong(source, n, tail, tailLength);
+	}
+    }
+}
@@ -0,0 +1,189 @@
+package com.horstmann.java8;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Read-only list that presents a sequence of lists as one, without copying their elements. The sizes of the chunks are summed into a prefix index when the
+ * view is created, so {@link #get(int)} is a binary search over the chunks followed by an indexed access into one of them. Iteration and streams search
+ * once and then walk the chunks in order.
+ *
+ * <p>
+ * The chunks must not change size while the view is in use, and should be {@link RandomAccess} for indexed access to be fast.
+ * </p>
+ */
+public class ChunkedList<T> extends AbstractList<T> implements RandomAccess {
+
+    private final List<? extends T>[] chunks;
+
+    /**
+     * offsets[c] is the index of the first element of chunk c; offsets[chunks.length] is the size of the view.
+     */
+    private final int[] offsets;
+
+    /**
+     * @param chunks
+     *            - lists to present in order
+     * @throws IllegalArgumentException
+     *             if the chunks hold more than Integer.MAX_VALUE elements in total
+     */
+    @SuppressWarnings("unchecked")
+    public ChunkedList(Collection<? extends List<? extends T>> chunks) {
+	this.chunks = (List<? extends T>[]) new List<?>[chunks.size()];
+	int n = 0;
+	for (List<? extends T> chunk : chunks) {
+	    this.chunks[n++] = chunk;
+	}
+	this.offsets = new int[this.chunks.length + 1];
+	long size = 0;
+	for (int c = 0; c < this.chunks.length; c++) {
+	    offsets[c] = (int) size;
+	    size += Objects.requireNonNull(this.chunks[c]).size();
+	    if (size > Integer.MAX_VALUE) {
+		throw new IllegalArgumentException("Chunks hold more than " + Integer.MAX_VALUE + " elements");
+	    }
+	}
+	offsets[this.chunks.length] = (int) size;
+    }
+
+    @Override
+    public int size() {
+	return offsets[chunks.length];
+    }
+
+    @Override
+    public T get(int index) {
+	if (index < 0 || index >= size()) {
+	    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+	}
+	int c = chunkOf(index);
+	return chunks[c].get(index - offsets[c]);
+    }
+
+    /**
+     * Returns the last chunk starting at or before index, which skips empty chunks.
+     */
+    private int chunkOf(int index) {
+	int lo = 0;
+	int hi = chunks.length - 1;
+	while (lo < hi) {
+	    int mid = (lo + hi + 1) >>> 1;
+	    if (offsets[mid] <= index) {
+		lo = mid;
+	    } else {
+		hi = mid - 1;
+	    }
+	}
+	return lo;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+	return Spliterators.iterator(spliterator());
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+	return new ChunkSpliterator(0, size());
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action) {
+	Objects.requireNonNull(action);
+	for (List<? extends T> chunk : chunks) {
+	    chunk.forEach(action);
+	}
+    }
+
+    /**
+     * Copies the elements into a new list, sized once.
+     *
+     * @return array list with the elements of all chunks
+     */
+    public ArrayList<T> toArrayList() {
+	ArrayList<T> list = new ArrayList<>(size());
+	for (List<? extends T> chunk : chunks) {
+	    list.addAll(chunk);
+	}
+	return list;
+    }
+
+    /**
+     * Spliterator over the indices [index, fence) of the view. It finds the chunk of its first index once and then walks the chunks in order, reading each
+     * element with one indexed access. Splitting halves the index range.
+     */
+    private final class ChunkSpliterator implements Spliterator<T> {
+	private int index;
+	private final int fence;
+	private int chunk = -1;
+
+	ChunkSpliterator(int index, int fence) {
+	    this.index = index;
+	    this.fence = fence;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+	    Objects.requireNonNull(action);
+	    if (index >= fence) {
+		return false;
+	    }
+	    if (chunk < 0) {
+		chunk = chunkOf(index);
+	    }
+	    while (index >= offsets[chunk + 1]) {
+		chunk++;
+	    }
+	    action.accept(chunks[chunk].get(index - offsets[chunk]));
+	    index++;
+	    return true;
+	}
+
+	@Override
+	public void forEachRemaining(Consumer<? super T> action) {
+	    Objects.requireNonNull(action);
+	    int i = index;
+	    if (i >= fence) {
+		return;
+	    }
+	    index = fence;
+	    for (int c = chunkOf(i); i < fence; c++) {
+		List<? extends T> list = chunks[c];
+		int offset = offsets[c];
+		for (int end = Math.min(offsets[c + 1], fence); i < end; i++) {
+		    action.accept(list.get(i - offset));
+		}
+	    }
+	}
+
+	@Override
+	public Spliterator<T> trySplit() {
+	    int mid = (index + fence) >>> 1;
+	    if (mid <= index) {
+		return null;
+	    }
+	    Spliterator<T> prefix = new ChunkSpliterator(index, mid);
+	    index = mid;
+	    chunk = -1;
+	    return prefix;
+	}
+
+	@Override
+	public long estimateSize() {
+	    return fence - index;
+	}
+
+	@Override
+	public int characteristics() {
+	    return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+	}
+    }
+}
@@ -1,11 +1,22 @@
 package com.horstmann.java8;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.stream.StreamSupport;
 
 public interface Collection2<T> extends Collection<T> {
 
+    /**
+     * Size from which {@link #parallelForEachIf(Consumer, Predicate)} spreads the work over the common fork/join pool.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 13;
+
     /**
      * Applies action to each element for which filter returns true.
      *
@@ -15,6 +26,91 @@ public interface Collection2<T> extends Collection<T> {
      *            - filter to be matched
      */
     public default void forEachIf(Consumer<T> action, Predicate<T> filter) {
-	this.stream().filter(filter).forEach(action);
+	for (T element : this) {
+	    if (filter.test(element)) {
+		action.accept(element);
+	    }
+	}
+    }
+
+    /**
+     * Applies action to each element for which filter returns true, splitting the collection across the common fork/join pool once it holds at least
+     * {@link #PARALLEL_THRESHOLD} elements. Smaller collections are handled by {@link #forEachIf(Consumer, Predicate)} in the calling thread.
+     *
+     * <p>
+     * Both action and filter are invoked concurrently from several threads, in no particular order, and must therefore be thread-safe. The call returns once
+     * every element has been processed.
+     * </p>
+     *
+     * @param action
+     *            - action to be applied
+     * @param filter
+     *            - filter to be matched
+     */
+    public default void parallelForEachIf(Consumer<T> action, Predicate<T> filter) {
+	if (size() < PARALLEL_THRESHOLD) {
+	    forEachIf(action, filter);
+	    return;
+	}
+	StreamSupport.stream(spliterator(), true).forEach(element -> {
+	    if (filter.test(element)) {
+		action.accept(element);
+	    }
+	});
+    }
+
+    /**
+     * Counts the elements for which filter returns true.
+     *
+     * @param filter
+     *            - filter to be matched
+     * @return number of matching elements
+     */
+    public default long countIf(Predicate<T> filter) {
+	long count = 0;
+	for (T element : this) {
+	    if (filter.test(element)) {
+		count++;
+	    }
+	}
+	return count;
+    }
+
+    /**
+     * Removes the elements for which filter returns true and returns them.
+     *
+     * @param filter
+     *            - filter to be matched
+     * @return removed elements, in iteration order
+     */
+    public default List<T> removeAndCollectIf(Predicate<T> filter) {
+	List<T> removed = new ArrayList<>();
+	for (Iterator<T> iterator = iterator(); iterator.hasNext();) {
+	    T element = iterator.next();
+	    if (filter.test(element)) {
+		removed.add(element);
+		iterator.remove();
+	    }
+	}
+	return removed;
+    }
+
+    /**
+     * Splits the elements into those for which filter returns true and those for which it returns false, in one pass.
+     *
+     * @param filter
+     *            - filter to be matched
+     * @return map from true to the matching elements and from false to the others, in iteration order
+     */
+    public default Map<Boolean, List<T>> partitionIf(Predicate<T> filter) {
+	List<T> matching = new ArrayList<>();
+	List<T> others = new ArrayList<>();
+	for (T element : this) {
+	    (filter.test(element) ? matching : others).add(element);
+	}
+	Map<Boolean, List<T>> partition = new HashMap<>(4);
+	partition.put(true, matching);
+	partition.put(false, others);
+	return partition;
     }
 }
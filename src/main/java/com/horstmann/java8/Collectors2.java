@@ -0,0 +1,122 @@
+package com.horstmann.java8;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
+
+public class Collectors2 {
+
+    /**
+     * Longs of padding on each side of a histogram container, so that containers of different threads never share a cache line.
+     */
+    private static final int PAD = 8;
+
+    /**
+     * Counts elements by a small integer key. Each parallel task counts into its own primitive array, padded to keep it off the cache lines of other tasks,
+     * and the arrays are added together once at the end. No key or count is boxed and no counter is shared between threads.
+     *
+     * @param key
+     *            - extracts the key of an element, which must lie in [0, size)
+     * @param size
+     *            - number of distinct keys
+     * @return collector producing an array whose element k is the number of elements with key k
+     * @throws IndexOutOfBoundsException
+     *             during collection, if an element has a key outside [0, size)
+     */
+    public static <T> Collector<T, ?, long[]> histogram(ToIntFunction<? super T> key, int size) {
+	if (size < 0) {
+	    throw new IllegalArgumentException("Size must not be negative: " + size);
+	}
+	return Collector.of(() -> new long[size + 2 * PAD], (counts, element) -> {
+	    int k = key.applyAsInt(element);
+	    if (k < 0 || k >= size) {
+		throw new IndexOutOfBoundsException("Key " + k + " outside [0, " + size + ")");
+	    }
+	    counts[PAD + k]++;
+	}, (left, right) -> {
+	    for (int i = PAD; i < PAD + size; i++) {
+		left[i] += right[i];
+	    }
+	    return left;
+	}, counts -> Arrays.copyOfRange(counts, PAD, PAD + size), Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Summarizes a double-valued function of the elements in one pass: count, compensated sum, mean, variance, minimum and maximum. Each parallel task keeps
+     * its own constant-size state, and the states are merged exactly, so no element is retained and no counter is shared.
+     *
+     * @param mapper
+     *            - extracts the value of an element
+     * @return collector producing the statistics of the values
+     */
+    public static <T> Collector<T, ?, DoubleStatistics> summarizing(ToDoubleFunction<? super T> mapper) {
+	return Collector.of(DoubleStatistics::new, (statistics, element) -> statistics.accept(mapper.applyAsDouble(element)), (left, right) -> {
+	    left.combine(right);
+	    return left;
+	}, Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Summarizes a double-valued function of the elements like {@link #summarizing(ToDoubleFunction)}, and also estimates its quantiles with a fixed-memory
+     * {@link QuantileSketch}.
+     *
+     * @param mapper
+     *            - extracts the value of an element
+     * @param relativeAccuracy
+     *            - bound on the relative error of quantiles, in (0, 1)
+     * @return collector producing the statistics of the values, with quantiles
+     */
+    public static <T> Collector<T, ?, DoubleStatistics> summarizing(ToDoubleFunction<? super T> mapper, double relativeAccuracy) {
+	return Collector.of(() -> new DoubleStatistics(relativeAccuracy), (statistics, element) -> statistics.accept(mapper.applyAsDouble(element)),
+		(left, right) -> {
+		    left.combine(right);
+		    return left;
+		}, Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Concatenates collections into one list in linear time. The collections are gathered first, then their sizes are summed and the result is allocated
+     * once and filled with one bulk copy per collection. Combining parallel results joins the lists of collections, so it copies no elements. The result
+     * owns its elements and does not change with the collections; {@link #chunked()} presents lists without copying them.
+     *
+     * @return collector producing the elements of all collections in encounter order
+     * @throws IllegalArgumentException
+     *             if the collections hold more than Integer.MAX_VALUE elements in total
+     */
+    public static <T> Collector<Collection<? extends T>, ?, ArrayList<T>> concatenating() {
+	return Collector.of(ArrayList<Collection<? extends T>>::new, List::add, (left, right) -> {
+	    left.addAll(right);
+	    return left;
+	}, chunks -> {
+	    long size = 0;
+	    for (Collection<? extends T> chunk : chunks) {
+		size += chunk.size();
+	    }
+	    if (size > Integer.MAX_VALUE) {
+		throw new IllegalArgumentException("Collections hold more than " + Integer.MAX_VALUE + " elements");
+	    }
+	    ArrayList<T> result = new ArrayList<>((int) size);
+	    for (Collection<? extends T> chunk : chunks) {
+		result.addAll(chunk);
+	    }
+	    return result;
+	});
+    }
+
+    /**
+     * Presents lists as one {@link ChunkedList} without copying any element. The lists must not change size while the view is in use; use
+     * {@link #concatenating()} for a list of its own.
+     *
+     * @return collector producing a read-only view of all lists in encounter order
+     */
+    public static <T> Collector<List<? extends T>, ?, List<T>> chunked() {
+	return Collector.of(ArrayList<List<? extends T>>::new, List::add, (left, right) -> {
+	    left.addAll(right);
+	    return left;
+	}, ChunkedList<T>::new);
+    }
+}
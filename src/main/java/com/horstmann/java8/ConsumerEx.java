@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.Consumer;
+
+public interface ConsumerEx<T> {
+    public void accept(T t) throws Exception;
+
+    /**
+     * Turns f into a {@link Consumer} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - consumer to convert exceptions for
+     * @return Consumer that does not throw any checked exceptions
+     */
+    public static <T> Consumer<T> uncheck(ConsumerEx<T> f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(ConsumerEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - consumer to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return Consumer that does not declare any checked exceptions
+     */
+    public static <T> Consumer<T> uncheck(ConsumerEx<T> f, UncheckMode mode) {
+	return t -> {
+	    try {
+		f.accept(t);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
@@ -0,0 +1,265 @@
+package com.horstmann.java8;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ManagedBlocker;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Walk of a directory tree on a shared fork/join pool whose matches are handed to a sequential spliterator through a bounded queue, so the first results
+ * arrive while the rest of the tree is still being read.
+ *
+ * <p>
+ * Every directory is one task: it reads its entries with a {@link DirectoryStream}, reads the attributes of each entry once, without following links, and
+ * uses them both to match files and to start a task per subdirectory, so sibling subtrees are read in parallel. All walks share one pool with a worker per
+ * processor, which bounds the threads blocked in file system calls. A task never waits for the queue: when it is full, the task parks with its directory
+ * stream still open and gives its thread back, and the consumer resumes a parked task for every path it takes, so a stalled consumer cannot starve other
+ * walks. Closing the spliterator cancels the walk, and parked tasks then close their directories; a walk that is never closed keeps them open, like an
+ * unclosed {@link Files#walk}. The end of the walk is signalled once every directory task has finished, even if some of them failed. The first error ends
+ * the traversal then, as an {@link UncheckedIOException} if it was an I/O error, with later errors added as suppressed exceptions.
+ * </p>
+ */
+class DirectoryWalk extends Spliterators.AbstractSpliterator<Path> implements AutoCloseable {
+
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final Object END = new Object();
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+	    null, true);
+
+    private final Walk walk;
+    private boolean finished;
+
+    /**
+     * @param root
+     *            - directory to walk
+     * @param glob
+     *            - pattern of the files to report; matched against the file name, or against the path relative to root if it contains a separator
+     * @param maxDepth
+     *            - levels of directories to read; 1 reads root only
+     */
+    DirectoryWalk(Path root, String glob, int maxDepth) {
+	super(Long.MAX_VALUE, Spliterator.DISTINCT | Spliterator.NONNULL);
+	this.walk = new Walk(root, glob, maxDepth);
+    }
+
+    DirectoryWalk start() {
+	walk.start();
+	return this;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Path> action) {
+	if (finished) {
+	    return false;
+	}
+	Object next;
+	try {
+	    next = walk.take();
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    close();
+	    throw new UncheckedIOException(new InterruptedIOException("Interrupted while walking " + walk.root));
+	}
+	if (next == END) {
+	    finished = true;
+	    Throwable e = walk.failure.get();
+	    if (e instanceof IOException) {
+		throw new UncheckedIOException((IOException) e);
+	    } else if (e instanceof RuntimeException) {
+		throw (RuntimeException) e;
+	    } else if (e instanceof Error) {
+		throw (Error) e;
+	    }
+	    return false;
+	}
+	action.accept((Path) next);
+	return true;
+    }
+
+    /**
+     * Cancels the walk. Running tasks stop at their next entry, and parked ones are resumed to close their directories.
+     */
+    @Override
+    public void close() {
+	walk.cancel();
+	walk.queue.clear();
+	finished = true;
+    }
+
+    /**
+     * State shared by the tasks of one walk.
+     */
+    private static final class Walk {
+	private final Path root;
+	private final PathMatcher matcher;
+	private final boolean matchRelativePath;
+	private final int maxDepth;
+	private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+	private final Semaphore room = new Semaphore(QUEUE_CAPACITY);
+	private final Queue<Directory> parked = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pending = new AtomicInteger();
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+	private volatile boolean cancelled;
+
+	Walk(Path root, String glob, int maxDepth) {
+	    this.root = root;
+	    this.matcher = root.getFileSystem().getPathMatcher("glob:" + glob);
+	    this.matchRelativePath = glob.indexOf('/') >= 0 || glob.indexOf(root.getFileSystem().getSeparator().charAt(0)) >= 0;
+	    this.maxDepth = maxDepth;
+	}
+
+	void start() {
+	    submit(new Directory(root, 1));
+	}
+
+	void submit(Directory directory) {
+	    pending.incrementAndGet();
+	    POOL.execute(directory);
+	}
+
+	void cancel() {
+	    cancelled = true;
+	    for (Directory directory; (directory = parked.poll()) != null;) {
+		POOL.execute(directory);
+	    }
+	}
+
+	void fail(Throwable e) {
+	    if (!failure.compareAndSet(null, e) && failure.get() != e) {
+		failure.get().addSuppressed(e);
+	    }
+	    cancel();
+	}
+
+	/**
+	 * Parks directory until the consumer makes room. It is resumed at once if room was made, or the walk cancelled, while it was being parked.
+	 */
+	void park(Directory directory) {
+	    parked.add(directory);
+	    if (cancelled || room.availablePermits() > 0) {
+		resume();
+	    }
+	}
+
+	void resume() {
+	    Directory directory = parked.poll();
+	    if (directory != null) {
+		POOL.execute(directory);
+	    }
+	}
+
+	void finished() {
+	    if (pending.decrementAndGet() == 0) {
+		queue.add(END);
+	    }
+	}
+
+	Object take() throws InterruptedException {
+	    class Take implements ManagedBlocker {
+		private Object next;
+
+		@Override
+		public boolean isReleasable() {
+		    return next != null || (next = queue.poll()) != null;
+		}
+
+		@Override
+		public boolean block() throws InterruptedException {
+		    if (next == null) {
+			next = queue.take();
+		    }
+		    return true;
+		}
+	    }
+	    Take blocker = new Take();
+	    ForkJoinPool.managedBlock(blocker);
+	    if (blocker.next != END) {
+		room.release();
+		resume();
+	    }
+	    return blocker.next;
+	}
+
+	/**
+	 * Reads one directory. It runs until its entries are exhausted or the walk is cancelled, and parks whenever a match finds the queue full.
+	 */
+	private class Directory implements Runnable {
+	    private final Path dir;
+	    private final int depth;
+	    private DirectoryStream<Path> entries;
+	    private Iterator<Path> iterator;
+	    private Path match;
+
+	    Directory(Path dir, int depth) {
+		this.dir = dir;
+		this.depth = depth;
+	    }
+
+	    @Override
+	    public void run() {
+		try {
+		    if (entries == null) {
+			entries = Files.newDirectoryStream(dir);
+			iterator = entries.iterator();
+		    }
+		    while (!cancelled) {
+			if (match != null) {
+			    if (!room.tryAcquire()) {
+				park(this);
+				return;
+			    }
+			    queue.add(match);
+			    match = null;
+			}
+			if (!iterator.hasNext()) {
+			    break;
+			}
+			Path entry = iterator.next();
+			BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+			if (attributes.isDirectory()) {
+			    if (depth < maxDepth) {
+				submit(new Directory(entry, depth + 1));
+			    }
+			} else if (matcher.matches(matchRelativePath ? root.relativize(entry) : entry.getFileName())) {
+			    match = entry;
+			}
+		    }
+		} catch (IOException e) {
+		    fail(e);
+		} catch (DirectoryIteratorException e) {
+		    fail(e.getCause());
+		} catch (RuntimeException | Error e) {
+		    fail(e);
+		}
+		try {
+		    if (entries != null) {
+			entries.close();
+		    }
+		} catch (IOException e) {
+		    fail(e);
+		} finally {
+		    finished();
+		}
+	    }
+	}
+    }
+}
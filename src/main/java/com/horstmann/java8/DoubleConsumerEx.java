@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.DoubleConsumer;
+
+public interface DoubleConsumerEx {
+    public void accept(double value) throws Exception;
+
+    /**
+     * Turns f into a {@link DoubleConsumer} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - consumer to convert exceptions for
+     * @return DoubleConsumer that does not throw any checked exceptions
+     */
+    public static DoubleConsumer uncheck(DoubleConsumerEx f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(DoubleConsumerEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - consumer to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return DoubleConsumer that does not declare any checked exceptions
+     */
+    public static DoubleConsumer uncheck(DoubleConsumerEx f, UncheckMode mode) {
+	return value -> {
+	    try {
+		f.accept(value);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
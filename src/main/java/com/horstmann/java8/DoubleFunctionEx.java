@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.DoubleFunction;
+
+public interface DoubleFunctionEx<R> {
+    public R apply(double value) throws Exception;
+
+    /**
+     * Turns f into a {@link DoubleFunction} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @return DoubleFunction that does not throw any checked exceptions
+     */
+    public static <R> DoubleFunction<R> uncheck(DoubleFunctionEx<R> f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(DoubleFunctionEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return DoubleFunction that does not declare any checked exceptions
+     */
+    public static <R> DoubleFunction<R> uncheck(DoubleFunctionEx<R> f, UncheckMode mode) {
+	return value -> {
+	    try {
+		return f.apply(value);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.DoublePredicate;
+
+public interface DoublePredicateEx {
+    public boolean test(double value) throws Exception;
+
+    /**
+     * Turns f into a {@link DoublePredicate} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - predicate to convert exceptions for
+     * @return DoublePredicate that does not throw any checked exceptions
+     */
+    public static DoublePredicate uncheck(DoublePredicateEx f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(DoublePredicateEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - predicate to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return DoublePredicate that does not declare any checked exceptions
+     */
+    public static DoublePredicate uncheck(DoublePredicateEx f, UncheckMode mode) {
+	return value -> {
+	    try {
+		return f.test(value);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
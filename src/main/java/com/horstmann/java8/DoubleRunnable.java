@@ -5,6 +5,11 @@ public class DoubleRunnable {
     /**
      * Takes as parameters two Runnable instances and returns a Runnable that runs the first, then the second.
      *
+     * <p>
+     * The result is a {@link RunnablePipeline}, and pipelines passed in are flattened into it, so chaining andThen calls does not nest runnables and each
+     * call takes amortized constant time.
+     * </p>
+     *
      * @param first
      *            - Runnable that runs first
      * @param second
@@ -12,9 +17,6 @@ public class DoubleRunnable {
      * @return Runnable that runs the first, then the second
      */
     public static Runnable andThen(Runnable first, Runnable second) {
-	return () -> {
-	    first.run();
-	    second.run();
-	};
+	return RunnablePipeline.of(first).then(second);
     }
 }
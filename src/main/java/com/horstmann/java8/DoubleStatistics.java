@@ -0,0 +1,200 @@
+package com.horstmann.java8;
+
+import java.util.function.DoubleConsumer;
+import java.util.stream.DoubleStream;
+
+/**
+ * Mergeable summary of doubles: count, compensated sum, mean, variance, minimum and maximum, and optionally a {@link QuantileSketch}.
+ *
+ * <p>
+ * The sum is accumulated with Kahan-Babuska compensation and the mean and variance with Welford's update, and two summaries are combined with Chan's
+ * formulas, so the results stay accurate over billions of values and do not drift when a parallel stream is split differently. Memory use is constant. Like
+ * {@link java.util.DoubleSummaryStatistics}, an instance is not thread-safe; use {@link Collectors2#summarizing} or
+ * {@link #of(DoubleStream)} to give each thread its own.
+ * </p>
+ */
+public class DoubleStatistics implements DoubleConsumer {
+
+    private long count;
+    private double sum;
+    private double compensation;
+    private double simpleSum;
+    private double mean;
+    private double squaredDeviations;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private final QuantileSketch sketch;
+
+    /**
+     * Creates statistics without quantiles.
+     */
+    public DoubleStatistics() {
+	this.sketch = null;
+    }
+
+    /**
+     * Creates statistics that also estimate quantiles with the given relative accuracy.
+     *
+     * @param relativeAccuracy
+     *            - bound on the relative error of quantiles, in (0, 1)
+     */
+    public DoubleStatistics(double relativeAccuracy) {
+	this.sketch = new QuantileSketch(relativeAccuracy, QuantileSketch.DEFAULT_MAX_BUCKETS);
+    }
+
+    /**
+     * Summarizes stream, in parallel if it is parallel.
+     *
+     * @param stream
+     *            - values to summarize
+     * @return statistics without quantiles
+     */
+    public static DoubleStatistics of(DoubleStream stream) {
+	return stream.collect(DoubleStatistics::new, DoubleStatistics::accept, DoubleStatistics::combine);
+    }
+
+    /**
+     * Summarizes stream, in parallel if it is parallel, including quantiles.
+     *
+     * @param stream
+     *            - values to summarize
+     * @param relativeAccuracy
+     *            - bound on the relative error of quantiles, in (0, 1)
+     * @return statistics with quantiles
+     */
+    public static DoubleStatistics of(DoubleStream stream, double relativeAccuracy) {
+	return stream.collect(() -> new DoubleStatistics(relativeAccuracy), DoubleStatistics::accept, DoubleStatistics::combine);
+    }
+
+    @Override
+    public void accept(double value) {
+	count++;
+	add(value);
+	simpleSum += value;
+	double delta = value - mean;
+	mean += delta / count;
+	squaredDeviations += delta * (value - mean);
+	min = Math.min(min, value);
+	max = Math.max(max, value);
+	if (sketch != null) {
+	    sketch.accept(value);
+	}
+    }
+
+    private void add(double value) {
+	double t = sum + value;
+	if (Math.abs(sum) >= Math.abs(value)) {
+	    compensation += (sum - t) + value;
+	} else {
+	    compensation += (value - t) + sum;
+	}
+	sum = t;
+    }
+
+    /**
+     * Adds the values summarized by other to this summary.
+     *
+     * @param other
+     *            - statistics to merge; must both have quantiles or both not
+     */
+    public void combine(DoubleStatistics other) {
+	if ((sketch == null) != (other.sketch == null)) {
+	    throw new IllegalArgumentException("Cannot combine statistics with and without quantiles");
+	}
+	if (other.count == 0) {
+	    return;
+	}
+	long total = count + other.count;
+	double delta = other.mean - mean;
+	mean += delta * other.count / total;
+	squaredDeviations += other.squaredDeviations + delta * delta * ((double) count * other.count / total);
+	count = total;
+	add(other.sum);
+	add(other.compensation);
+	simpleSum += other.simpleSum;
+	min = Math.min(min, other.min);
+	max = Math.max(max, other.max);
+	if (sketch != null) {
+	    sketch.combine(other.sketch);
+	}
+    }
+
+    public long getCount() {
+	return count;
+    }
+
+    /**
+     * Returns the compensated sum of the values, or the plain sum if compensation overflowed to NaN on infinite values.
+     */
+    public double getSum() {
+	double result = sum + compensation;
+	return Double.isNaN(result) && Double.isInfinite(simpleSum) ? simpleSum : result;
+    }
+
+    /**
+     * Returns the mean of the values, or 0 if there are none.
+     */
+    public double getMean() {
+	return count == 0 ? 0 : mean;
+    }
+
+    /**
+     * Returns the population variance of the values, or 0 if there are none.
+     */
+    public double getPopulationVariance() {
+	return count == 0 ? 0 : squaredDeviations / count;
+    }
+
+    /**
+     * Returns the sample variance of the values, or 0 if there are fewer than two.
+     */
+    public double getVariance() {
+	return count < 2 ? 0 : squaredDeviations / (count - 1);
+    }
+
+    public double getStandardDeviation() {
+	return Math.sqrt(getVariance());
+    }
+
+    public double getMin() {
+	return min;
+    }
+
+    public double getMax() {
+	return max;
+    }
+
+    public boolean hasQuantiles() {
+	return sketch != null;
+    }
+
+    /**
+     * Returns an estimate of the q-quantile, clamped to the observed minimum and maximum.
+     *
+     * @param q
+     *            - quantile in [0, 1]
+     * @return estimated quantile, or NaN if there are no values
+     * @throws IllegalStateException
+     *             if these statistics were created without quantiles
+     */
+    public double getQuantile(double q) {
+	if (sketch == null) {
+	    throw new IllegalStateException("Quantiles were not requested");
+	}
+	if (q == 0 || q == 1) {
+	    return count == 0 ? Double.NaN : q == 0 ? min : max;
+	}
+	double quantile = sketch.getQuantile(q);
+	return Double.isNaN(quantile) ? quantile : Math.min(Math.max(quantile, min), max);
+    }
+
+    public double getMedian() {
+	return getQuantile(0.5);
+    }
+
+    @Override
+    public String toString() {
+	return String.format("%s{count=%d, sum=%f, mean=%f, stddev=%f, min=%f, max=%f}", getClass().getSimpleName(), getCount(), getSum(), getMean(),
+		getStandardDeviation(), getMin(), getMax());
+    }
+}
@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.DoubleSupplier;
+
+public interface DoubleSupplierEx {
+    public double getAsDouble() throws Exception;
+
+    /**
+     * Turns f into a {@link DoubleSupplier} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - supplier to convert exceptions for
+     * @return DoubleSupplier that does not throw any checked exceptions
+     */
+    public static DoubleSupplier uncheck(DoubleSupplierEx f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(DoubleSupplierEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - supplier to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return DoubleSupplier that does not declare any checked exceptions
+     */
+    public static DoubleSupplier uncheck(DoubleSupplierEx f, UncheckMode mode) {
+	return () -> {
+	    try {
+		return f.getAsDouble();
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
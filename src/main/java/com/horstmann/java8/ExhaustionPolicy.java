@@ -0,0 +1,15 @@
+package com.horstmann.java8;
+
+/**
+ * What a stream combining several sources does when one of them runs out of elements.
+ */
+public enum ExhaustionPolicy {
+    /**
+     * End the combined stream as soon as any source is exhausted.
+     */
+    STOP,
+    /**
+     * Continue with the remaining sources until all of them are exhausted.
+     */
+    DRAIN
+}
@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.Function;
+
+public interface FunctionEx<T, R> {
+    public R apply(T t) throws Exception;
+
+    /**
+     * Turns f into a {@link Function} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @return Function that does not throw any checked exceptions
+     */
+    public static <T, R> Function<T, R> uncheck(FunctionEx<T, R> f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(FunctionEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return Function that does not declare any checked exceptions
+     */
+    public static <T, R> Function<T, R> uncheck(FunctionEx<T, R> f, UncheckMode mode) {
+	return t -> {
+	    try {
+		return f.apply(t);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
@@ -0,0 +1,161 @@
+package com.horstmann.java8;
+
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Fork/join tasks that copy a SIZED and SUBSIZED spliterator into a preallocated array. Each split knows the exact size of its prefix, so every task writes
+ * its elements at their encounter-order index: there is no shared counter and nothing to merge afterwards.
+ */
+abstract class IndexedFill<S extends Spliterator<?>> extends RecursiveAction {
+
+    private static final long serialVersionUID = -2284536214925004839L;
+
+    private final S spliterator;
+    final long threshold;
+    int index;
+
+    IndexedFill(S spliterator, long threshold, int index) {
+	this.spliterator = spliterator;
+	this.threshold = threshold;
+	this.index = index;
+    }
+
+    /**
+     * Returns whether spliterator reports an exact size for itself and for every split.
+     */
+    static boolean isIndexable(Spliterator<?> spliterator) {
+	return spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED) && spliterator.getExactSizeIfKnown() < Integer.MAX_VALUE - 8;
+    }
+
+    /**
+     * Returns the size below which a task stops splitting, aiming at four leaves per worker of the common pool.
+     */
+    static long threshold(Spliterator<?> spliterator, boolean parallel) {
+	if (!parallel) {
+	    return Long.MAX_VALUE;
+	}
+	return Math.max(spliterator.estimateSize() / (ForkJoinPool.getCommonPoolParallelism() << 2), 1);
+    }
+
+    abstract IndexedFill<S> create(S spliterator, int index);
+
+    abstract void fill(S spliterator);
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void compute() {
+	S prefix;
+	if (spliterator.estimateSize() > threshold && (prefix = (S) spliterator.trySplit()) != null) {
+	    int suffixIndex = index + (int) prefix.getExactSizeIfKnown();
+	    invokeAll(create(prefix, index), create(spliterator, suffixIndex));
+	} else {
+	    fill(spliterator);
+	}
+    }
+
+    static class OfRef<T> extends IndexedFill<Spliterator<T>> implements Consumer<T> {
+	private static final long serialVersionUID = 1416203593526817374L;
+	private final T[] array;
+
+	OfRef(Spliterator<T> spliterator, long threshold, int index, T[] array) {
+	    super(spliterator, threshold, index);
+	    this.array = array;
+	}
+
+	@Override
+	IndexedFill<Spliterator<T>> create(Spliterator<T> spliterator, int index) {
+	    return new OfRef<>(spliterator, threshold, index, array);
+	}
+
+	@Override
+	void fill(Spliterator<T> spliterator) {
+	    spliterator.forEachRemaining(this);
+	}
+
+	@Override
+	public void accept(T t) {
+	    array[index++] = t;
+	}
+    }
+
+    static class OfInt extends IndexedFill<Spliterator.OfInt> implements IntConsumer {
+	private static final long serialVersionUID = -6097420462186361587L;
+	private final int[] array;
+
+	OfInt(Spliterator.OfInt spliterator, long threshold, int index, int[] array) {
+	    super(spliterator, threshold, index);
+	    this.array = array;
+	}
+
+	@Override
+	IndexedFill<Spliterator.OfInt> create(Spliterator.OfInt spliterator, int index) {
+	    return new OfInt(spliterator, threshold, index, array);
+	}
+
+	@Override
+	void fill(Spliterator.OfInt spliterator) {
+	    spliterator.forEachRemaining((IntConsumer) this);
+	}
+
+	@Override
+	public void accept(int value) {
+	    array[index++] = value;
+	}
+    }
+
+    static class OfLong extends IndexedFill<Spliterator.OfLong> implements LongConsumer {
+	private static final long serialVersionUID = 3717367745512637431L;
+	private final long[] array;
+
+	OfLong(Spliterator.OfLong spliterator, long threshold, int index, long[] array) {
+	    super(spliterator, threshold, index);
+	    this.array = array;
+	}
+
+	@Override
+	IndexedFill<Spliterator.OfLong> create(Spliterator.OfLong spliterator, int index) {
+	    return new OfLong(spliterator, threshold, index, array);
+	}
+
+	@Override
+	void fill(Spliterator.OfLong spliterator) {
+	    spliterator.forEachRemaining((LongConsumer) this);
+	}
+
+	@Override
+	public void accept(long value) {
+	    array[index++] = value;
+	}
+    }
+
+    static class OfDouble extends IndexedFill<Spliterator.OfDouble> implements DoubleConsumer {
+	private static final long serialVersionUID = -400744325719414985L;
+	private final double[] array;
+
+	OfDouble(Spliterator.OfDouble spliterator, long threshold, int index, double[] array) {
+	    super(spliterator, threshold, index);
+	    this.array = array;
+	}
+
+	@Override
+	IndexedFill<Spliterator.OfDouble> create(Spliterator.OfDouble spliterator, int index) {
+	    return new OfDouble(spliterator, threshold, index, array);
+	}
+
+	@Override
+	void fill(Spliterator.OfDouble spliterator) {
+	    spliterator.forEachRemaining((DoubleConsumer) this);
+	}
+
+	@Override
+	public void accept(double value) {
+	    array[index++] = value;
+	}
+    }
+}
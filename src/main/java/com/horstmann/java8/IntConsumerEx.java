@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.IntConsumer;
+
+public interface IntConsumerEx {
+    public void accept(int value) throws Exception;
+
+    /**
+     * Turns f into an {@link IntConsumer} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - consumer to convert exceptions for
+     * @return IntConsumer that does not throw any checked exceptions
+     */
+    public static IntConsumer uncheck(IntConsumerEx f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(IntConsumerEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - consumer to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return IntConsumer that does not declare any checked exceptions
+     */
+    public static IntConsumer uncheck(IntConsumerEx f, UncheckMode mode) {
+	return value -> {
+	    try {
+		f.accept(value);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
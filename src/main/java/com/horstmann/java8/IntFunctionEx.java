@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.IntFunction;
+
+public interface IntFunctionEx<R> {
+    public R apply(int value) throws Exception;
+
+    /**
+     * Turns f into an {@link IntFunction} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @return IntFunction that does not throw any checked exceptions
+     */
+    public static <R> IntFunction<R> uncheck(IntFunctionEx<R> f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(IntFunctionEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return IntFunction that does not declare any checked exceptions
+     */
+    public static <R> IntFunction<R> uncheck(IntFunctionEx<R> f, UncheckMode mode) {
+	return value -> {
+	    try {
+		return f.apply(value);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.IntPredicate;
+
+public interface IntPredicateEx {
+    public boolean test(int value) throws Exception;
+
+    /**
+     * Turns f into an {@link IntPredicate} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - predicate to convert exceptions for
+     * @return IntPredicate that does not throw any checked exceptions
+     */
+    public static IntPredicate uncheck(IntPredicateEx f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(IntPredicateEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - predicate to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return IntPredicate that does not declare any checked exceptions
+     */
+    public static IntPredicate uncheck(IntPredicateEx f, UncheckMode mode) {
+	return value -> {
+	    try {
+		return f.test(value);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
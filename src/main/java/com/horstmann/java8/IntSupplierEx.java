@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.IntSupplier;
+
+public interface IntSupplierEx {
+    public int getAsInt() throws Exception;
+
+    /**
+     * Turns f into an {@link IntSupplier} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - supplier to convert exceptions for
+     * @return IntSupplier that does not throw any checked exceptions
+     */
+    public static IntSupplier uncheck(IntSupplierEx f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(IntSupplierEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - supplier to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return IntSupplier that does not declare any checked exceptions
+     */
+    public static IntSupplier uncheck(IntSupplierEx f, UncheckMode mode) {
+	return () -> {
+	    try {
+		return f.getAsInt();
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
@@ -0,0 +1,54 @@
+package com.horstmann.java8;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Sequential round-robin over spliterators: one element from each source in turn. Exhausted sources are dropped from the rotation, or end the traversal,
+ * depending on the {@link ExhaustionPolicy}.
+ */
+class InterleaveSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+    private final Spliterator<? extends T>[] sources;
+    private final ExhaustionPolicy policy;
+
+    /**
+     * Indices of the sources still in the rotation, in their original order.
+     */
+    private final int[] active;
+    private int activeCount;
+    private int cursor;
+
+    InterleaveSpliterator(Spliterator<? extends T>[] sources, ExhaustionPolicy policy) {
+	super(MergeSpliterator.estimate(sources), Spliterator.ORDERED);
+	this.sources = sources;
+	this.policy = policy;
+	this.active = new int[sources.length];
+	for (int i = 0; i < sources.length; i++) {
+	    active[i] = i;
+	}
+	this.activeCount = sources.length;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+	while (activeCount > 0) {
+	    if (sources[active[cursor]].tryAdvance(action)) {
+		if (++cursor == activeCount) {
+		    cursor = 0;
+		}
+		return true;
+	    }
+	    if (policy == ExhaustionPolicy.STOP) {
+		activeCount = 0;
+		return false;
+	    }
+	    System.arraycopy(active, cursor + 1, active, cursor, --activeCount - cursor);
+	    if (cursor == activeCount) {
+		cursor = 0;
+	    }
+	}
+	return false;
+    }
+}
@@ -0,0 +1,189 @@
+package com.horstmann.java8;
+
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Spliterator over the linear congruential sequence x_0 = seed, x_n+1 = (a*x_n+c) mod m. Values are reduced into [0, m) without overflow.
+ *
+ * <p>
+ * Splitting jumps the state of the suffix k steps ahead in O(log k) by raising the affine map x -> a*x+c to the k-th power, so each half can be generated
+ * independently and the parallel output equals the sequential one. When m is a power of two the modulus is taken with a mask.
+ * </p>
+ *
+ * <p>
+ * A fence of Long.MAX_VALUE stands for a sequence without end. Such a spliterator is not SIZED, and neither are the suffixes split off it, so that no
+ * consumer takes it for a stream of 2<sup>63</sup>-1 elements.
+ * </p>
+ */
+class LinearCongruentialSpliterator implements Spliterator.OfLong {
+
+    private static final long MAX_SQUARABLE = 3037000499L;
+
+    private final long a;
+    private final long c;
+    private final long m;
+    private final long mask;
+    private final boolean direct;
+
+    private long index;
+    private final long fence;
+    private long x;
+
+    /**
+     * @param fence
+     *            - number of elements to generate, or Long.MAX_VALUE for no end
+     * @param seed
+     *            - x_0, reduced modulo m
+     * @param a
+     *            - multiplier
+     * @param c
+     *            - increment
+     * @param m
+     *            - modulus, must be positive
+     */
+    LinearCongruentialSpliterator(long fence, long seed, long a, long c, long m) {
+	if (m <= 0) {
+	    throw new IllegalArgumentException("Modulus must be positive: " + m);
+	}
+	if (fence < 0) {
+	    throw new IllegalArgumentException("Size must not be negative: " + fence);
+	}
+	this.m = m;
+	this.mask = (m & (m - 1)) == 0 ? m - 1 : -1;
+	this.a = reduce(a);
+	this.c = reduce(c);
+	this.direct = this.a == 0 || (m - 1 <= (Long.MAX_VALUE - this.c) / this.a);
+	this.index = 0;
+	this.fence = fence;
+	this.x = reduce(seed);
+    }
+
+    private LinearCongruentialSpliterator(LinearCongruentialSpliterator parent, long index, long fence, long x) {
+	this.a = parent.a;
+	this.c = parent.c;
+	this.m = parent.m;
+	this.mask = parent.mask;
+	this.direct = parent.direct;
+	this.index = index;
+	this.fence = fence;
+	this.x = x;
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+	if (index >= fence) {
+	    return false;
+	}
+	action.accept(x);
+	x = next(x);
+	index++;
+	return true;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+	long i = index;
+	long value = x;
+	if (mask >= 0) {
+	    for (; i < fence; i++) {
+		action.accept(value);
+		value = (a * value + c) & mask;
+	    }
+	} else if (direct) {
+	    for (; i < fence; i++) {
+		action.accept(value);
+		value = (a * value + c) % m;
+	    }
+	} else {
+	    for (; i < fence; i++) {
+		action.accept(value);
+		value = add(multiply(a, value), c);
+	    }
+	}
+	index = i;
+	x = value;
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit() {
+	long lo = index;
+	long mid = lo + (fence - lo) / 2;
+	if (mid <= lo) {
+	    return null;
+	}
+	LinearCongruentialSpliterator prefix = new LinearCongruentialSpliterator(this, lo, mid, x);
+	x = jump(x, mid - lo);
+	index = mid;
+	return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+	return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+	return fence == Long.MAX_VALUE ? ORDERED | IMMUTABLE | NONNULL : ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+    }
+
+    private long next(long value) {
+	if (mask >= 0) {
+	    return (a * value + c) & mask;
+	}
+	if (direct) {
+	    return (a * value + c) % m;
+	}
+	return add(multiply(a, value), c);
+    }
+
+    /**
+     * Returns the state k steps after value, composing the affine map with itself by repeated squaring.
+     */
+    private long jump(long value, long k) {
+	long resultA = 1 % m;
+	long resultC = 0;
+	long baseA = a;
+	long baseC = c;
+	while (k > 0) {
+	    if ((k & 1) != 0) {
+		resultC = add(multiply(baseA, resultC), baseC);
+		resultA = multiply(baseA, resultA);
+	    }
+	    baseC = add(multiply(baseA, baseC), baseC);
+	    baseA = multiply(baseA, baseA);
+	    k >>>= 1;
+	}
+	return add(multiply(resultA, value), resultC);
+    }
+
+    private long reduce(long value) {
+	return mask >= 0 ? value & mask : Math.floorMod(value, m);
+    }
+
+    private long add(long x, long y) {
+	if (mask >= 0) {
+	    return (x + y) & mask;
+	}
+	return x >= m - y ? x - (m - y) : x + y;
+    }
+
+    private long multiply(long x, long y) {
+	if (mask >= 0) {
+	    return (x * y) & mask;
+	}
+	if (m <= MAX_SQUARABLE) {
+	    return x * y % m;
+	}
+	long result = 0;
+	while (y > 0) {
+	    if ((y & 1) != 0) {
+		result = add(result, x);
+	    }
+	    x = add(x, x);
+	    y >>>= 1;
+	}
+	return result;
+    }
+}
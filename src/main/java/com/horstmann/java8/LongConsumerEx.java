@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.LongConsumer;
+
+public interface LongConsumerEx {
+    public void accept(long value) throws Exception;
+
+    /**
+     * Turns f into a {@link LongConsumer} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - consumer to convert exceptions for
+     * @return LongConsumer that does not throw any checked exceptions
+     */
+    public static LongConsumer uncheck(LongConsumerEx f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(LongConsumerEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - consumer to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return LongConsumer that does not declare any checked exceptions
+     */
+    public static LongConsumer uncheck(LongConsumerEx f, UncheckMode mode) {
+	return value -> {
+	    try {
+		f.accept(value);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
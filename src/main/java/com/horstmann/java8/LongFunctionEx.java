@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.LongFunction;
+
+public interface LongFunctionEx<R> {
+    public R apply(long value) throws Exception;
+
+    /**
+     * Turns f into a {@link LongFunction} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @return LongFunction that does not throw any checked exceptions
+     */
+    public static <R> LongFunction<R> uncheck(LongFunctionEx<R> f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(LongFunctionEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return LongFunction that does not declare any checked exceptions
+     */
+    public static <R> LongFunction<R> uncheck(LongFunctionEx<R> f, UncheckMode mode) {
+	return value -> {
+	    try {
+		return f.apply(value);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.LongPredicate;
+
+public interface LongPredicateEx {
+    public boolean test(long value) throws Exception;
+
+    /**
+     * Turns f into a {@link LongPredicate} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - predicate to convert exceptions for
+     * @return LongPredicate that does not throw any checked exceptions
+     */
+    public static LongPredicate uncheck(LongPredicateEx f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(LongPredicateEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - predicate to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return LongPredicate that does not declare any checked exceptions
+     */
+    public static LongPredicate uncheck(LongPredicateEx f, UncheckMode mode) {
+	return value -> {
+	    try {
+		return f.test(value);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
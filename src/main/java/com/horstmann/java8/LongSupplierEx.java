@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.LongSupplier;
+
+public interface LongSupplierEx {
+    public long getAsLong() throws Exception;
+
+    /**
+     * Turns f into a {@link LongSupplier} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - supplier to convert exceptions for
+     * @return LongSupplier that does not throw any checked exceptions
+     */
+    public static LongSupplier uncheck(LongSupplierEx f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(LongSupplierEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - supplier to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return LongSupplier that does not declare any checked exceptions
+     */
+    public static LongSupplier uncheck(LongSupplierEx f, UncheckMode mode) {
+	return () -> {
+	    try {
+		return f.getAsLong();
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
@@ -0,0 +1,219 @@
+package com.horstmann.java8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the words of a memory-mapped UTF-8 file. A word is a maximal run of letters (Unicode category L), matching
+ * {@code split("[\\P{L}]")} without the empty strings.
+ *
+ * <p>
+ * The file is mapped in regions of 1 GiB so files larger than 2 GiB work. Code points are decoded straight from the mapped bytes and only the bytes of each
+ * word are turned into a String. Splits are moved forward to the next non-letter, so no word is cut in two and a parallel traversal sees the same words as
+ * a sequential one.
+ * </p>
+ */
+class MappedWordSpliterator implements Spliterator<String> {
+
+    private static final int REGION_SHIFT = 30;
+    private static final long REGION_MASK = (1L << REGION_SHIFT) - 1;
+    private static final int MIN_SPLIT = 1 << 16;
+    private static final int MALFORMED = 0xFFFD;
+
+    private final ByteBuffer[] regions;
+    private final long size;
+    private long index;
+    private final long fence;
+
+    long wordStart;
+    long wordEnd;
+    private byte[] buffer = new byte[64];
+
+    private MappedWordSpliterator(ByteBuffer[] regions, long size, long index, long fence) {
+	this.regions = regions;
+	this.size = size;
+	this.index = index;
+	this.fence = fence;
+    }
+
+    /**
+     * Maps the file at path read-only. The channel is closed before returning; the mapping stays valid until it is garbage collected.
+     *
+     * @param path
+     *            - UTF-8 text file
+     * @return spliterator over all words of the file
+     * @throws IOException
+     *             if the file cannot be opened or mapped
+     */
+    static MappedWordSpliterator map(Path path) throws IOException {
+	try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+	    long size = channel.size();
+	    ByteBuffer[] regions = new ByteBuffer[(int) ((size + REGION_MASK) >>> REGION_SHIFT)];
+	    for (int i = 0; i < regions.length; i++) {
+		long position = (long) i << REGION_SHIFT;
+		regions[i] = channel.map(MapMode.READ_ONLY, position, Math.min(REGION_MASK + 1, size - position));
+	    }
+	    return new MappedWordSpliterator(regions, size, 0, size);
+	}
+    }
+
+    byte get(long position) {
+	return regions[(int) (position >>> REGION_SHIFT)].get((int) (position & REGION_MASK));
+    }
+
+    /**
+     * Decodes the code point at position, returning it in the low 24 bits and its length in bytes in the high 8 bits. Malformed input decodes as U+FFFD of
+     * length one.
+     */
+    private int decode(long position) {
+	int b = get(position);
+	if (b >= 0) {
+	    return 1 << 24 | b;
+	}
+	int length;
+	int cp;
+	if ((b & 0xE0) == 0xC0) {
+	    length = 2;
+	    cp = b & 0x1F;
+	} else if ((b & 0xF0) == 0xE0) {
+	    length = 3;
+	    cp = b & 0x0F;
+	} else if ((b & 0xF8) == 0xF0) {
+	    length = 4;
+	    cp = b & 0x07;
+	} else {
+	    return 1 << 24 | MALFORMED;
+	}
+	if (position + length > size) {
+	    return 1 << 24 | MALFORMED;
+	}
+	for (int i = 1; i < length; i++) {
+	    int continuation = get(position + i);
+	    if ((continuation & 0xC0) != 0x80) {
+		return 1 << 24 | MALFORMED;
+	    }
+	    cp = cp << 6 | continuation & 0x3F;
+	}
+	return length << 24 | cp;
+    }
+
+    private static boolean isLetter(int decoded) {
+	int cp = decoded & 0xFFFFFF;
+	if (cp < 0x80) {
+	    return (cp | 0x20) >= 'a' && (cp | 0x20) <= 'z';
+	}
+	return Character.isLetter(cp);
+    }
+
+    /**
+     * Finds the next word and stores its byte range in {@link #wordStart} and {@link #wordEnd}.
+     *
+     * @return false if there are no more words
+     */
+    boolean nextWord() {
+	long i = index;
+	long hi = fence;
+	while (i < hi) {
+	    int decoded = decode(i);
+	    if (isLetter(decoded)) {
+		break;
+	    }
+	    i += decoded >>> 24;
+	}
+	if (i >= hi) {
+	    index = hi;
+	    return false;
+	}
+	wordStart = i;
+	while (i < hi) {
+	    int decoded = decode(i);
+	    if (!isLetter(decoded)) {
+		break;
+	    }
+	    i += decoded >>> 24;
+	}
+	wordEnd = i;
+	index = i;
+	return true;
+    }
+
+    /**
+     * Copies the bytes of the current word to the start of a buffer that is reused for every word.
+     *
+     * @return buffer whose first wordEnd - wordStart bytes are the word
+     */
+    byte[] wordBytes() {
+	int length = (int) (wordEnd - wordStart);
+	if (length > buffer.length) {
+	    buffer = new byte[Math.max(length, buffer.length * 2)];
+	}
+	for (int i = 0; i < length; i++) {
+	    buffer[i] = get(wordStart + i);
+	}
+	return buffer;
+    }
+
+    private String word() {
+	return new String(wordBytes(), 0, (int) (wordEnd - wordStart), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+	if (!nextWord()) {
+	    return false;
+	}
+	action.accept(word());
+	return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super String> action) {
+	while (nextWord()) {
+	    action.accept(word());
+	}
+    }
+
+    @Override
+    public MappedWordSpliterator trySplit() {
+	long lo = index;
+	if (fence - lo < MIN_SPLIT) {
+	    return null;
+	}
+	long mid = lo + (fence - lo) / 2;
+	while (mid < fence && (get(mid) & 0xC0) == 0x80) {
+	    mid++;
+	}
+	while (mid < fence) {
+	    int decoded = decode(mid);
+	    if (!isLetter(decoded)) {
+		break;
+	    }
+	    mid += decoded >>> 24;
+	}
+	if (mid >= fence) {
+	    return null;
+	}
+	index = mid;
+	return new MappedWordSpliterator(regions, size, lo, mid);
+    }
+
+    /**
+     * Returns the number of remaining bytes, an upper bound on the number of remaining words.
+     */
+    @Override
+    public long estimateSize() {
+	return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+	return ORDERED | NONNULL | IMMUTABLE;
+    }
+}
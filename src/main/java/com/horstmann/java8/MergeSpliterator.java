@@ -0,0 +1,113 @@
+package com.horstmann.java8;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Sequential k-way merge of sorted spliterators. It holds the current head of each source and a binary min-heap of source indices ordered by head, with
+ * ties broken by source index so that equal elements keep the order of their sources. Each element emitted costs one pull from its source and O(log k)
+ * comparisons, and memory is O(k).
+ */
+class MergeSpliterator<T> extends Spliterators.AbstractSpliterator<T> implements Consumer<T> {
+
+    private final Spliterator<? extends T>[] sources;
+    private final Comparator<? super T> comparator;
+    private final ExhaustionPolicy policy;
+    private final Object[] heads;
+    private final int[] heap;
+    private int heapSize = -1;
+    private int pulling;
+    private boolean stopped;
+
+    MergeSpliterator(Spliterator<? extends T>[] sources, Comparator<? super T> comparator, ExhaustionPolicy policy) {
+	super(estimate(sources), Spliterator.ORDERED);
+	this.sources = sources;
+	this.comparator = comparator;
+	this.policy = policy;
+	this.heads = new Object[sources.length];
+	this.heap = new int[sources.length];
+    }
+
+    static long estimate(Spliterator<?>[] sources) {
+	long sum = 0;
+	for (Spliterator<?> source : sources) {
+	    sum += source.estimateSize();
+	    if (sum < 0) {
+		return Long.MAX_VALUE;
+	    }
+	}
+	return sum;
+    }
+
+    @Override
+    public void accept(T t) {
+	heads[pulling] = t;
+    }
+
+    private boolean pull(int source) {
+	pulling = source;
+	return sources[source].tryAdvance(this);
+    }
+
+    private void init() {
+	heapSize = 0;
+	for (int i = 0; i < sources.length; i++) {
+	    if (pull(i)) {
+		heap[heapSize++] = i;
+	    } else if (policy == ExhaustionPolicy.STOP) {
+		stopped = true;
+		return;
+	    }
+	}
+	for (int i = heapSize / 2 - 1; i >= 0; i--) {
+	    siftDown(i);
+	}
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean tryAdvance(Consumer<? super T> action) {
+	if (heapSize < 0) {
+	    init();
+	}
+	if (stopped || heapSize == 0) {
+	    return false;
+	}
+	int top = heap[0];
+	T element = (T) heads[top];
+	if (pull(top)) {
+	    siftDown(0);
+	} else if (policy == ExhaustionPolicy.STOP) {
+	    stopped = true;
+	} else {
+	    heads[top] = null;
+	    heap[0] = heap[--heapSize];
+	    siftDown(0);
+	}
+	action.accept(element);
+	return true;
+    }
+
+    private void siftDown(int i) {
+	int source = heap[i];
+	for (int child = 2 * i + 1; child < heapSize; child = 2 * i + 1) {
+	    if (child + 1 < heapSize && less(heap[child + 1], heap[child])) {
+		child++;
+	    }
+	    if (!less(heap[child], source)) {
+		break;
+	    }
+	    heap[i] = heap[child];
+	    i = child;
+	}
+	heap[i] = source;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean less(int a, int b) {
+	int c = comparator.compare((T) heads[a], (T) heads[b]);
+	return c < 0 || c == 0 && a < b;
+    }
+}
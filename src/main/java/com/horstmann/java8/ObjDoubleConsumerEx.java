@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.ObjDoubleConsumer;
+
+public interface ObjDoubleConsumerEx<T> {
+    public void accept(T t, double value) throws Exception;
+
+    /**
+     * Turns f into an {@link ObjDoubleConsumer} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - consumer to convert exceptions for
+     * @return ObjDoubleConsumer that does not throw any checked exceptions
+     */
+    public static <T> ObjDoubleConsumer<T> uncheck(ObjDoubleConsumerEx<T> f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(ObjDoubleConsumerEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - consumer to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return ObjDoubleConsumer that does not declare any checked exceptions
+     */
+    public static <T> ObjDoubleConsumer<T> uncheck(ObjDoubleConsumerEx<T> f, UncheckMode mode) {
+	return (t, value) -> {
+	    try {
+		f.accept(t, value);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
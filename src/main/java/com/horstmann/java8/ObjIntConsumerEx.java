@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.ObjIntConsumer;
+
+public interface ObjIntConsumerEx<T> {
+    public void accept(T t, int value) throws Exception;
+
+    /**
+     * Turns f into an {@link ObjIntConsumer} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - consumer to convert exceptions for
+     * @return ObjIntConsumer that does not throw any checked exceptions
+     */
+    public static <T> ObjIntConsumer<T> uncheck(ObjIntConsumerEx<T> f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(ObjIntConsumerEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - consumer to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return ObjIntConsumer that does not declare any checked exceptions
+     */
+    public static <T> ObjIntConsumer<T> uncheck(ObjIntConsumerEx<T> f, UncheckMode mode) {
+	return (t, value) -> {
+	    try {
+		f.accept(t, value);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
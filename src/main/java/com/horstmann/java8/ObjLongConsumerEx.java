@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.ObjLongConsumer;
+
+public interface ObjLongConsumerEx<T> {
+    public void accept(T t, long value) throws Exception;
+
+    /**
+     * Turns f into an {@link ObjLongConsumer} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - consumer to convert exceptions for
+     * @return ObjLongConsumer that does not throw any checked exceptions
+     */
+    public static <T> ObjLongConsumer<T> uncheck(ObjLongConsumerEx<T> f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(ObjLongConsumerEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - consumer to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return ObjLongConsumer that does not declare any checked exceptions
+     */
+    public static <T> ObjLongConsumer<T> uncheck(ObjLongConsumerEx<T> f, UncheckMode mode) {
+	return (t, value) -> {
+	    try {
+		f.accept(t, value);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
@@ -0,0 +1,213 @@
+package com.horstmann.java8;
+
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * Parallel loops over arrays and lists, run on the common fork/join pool.
+ *
+ * <p>
+ * Arrays and lists are both read by index, so every loop is one task over an index range. It halves the range until it is no longer than the leaf size,
+ * which aims at four leaves per worker of the common pool, as the indexed fills of {@link Streams#toArray} do, but is never shorter than
+ * {@value #MIN_SEGMENT} elements, so small inputs run in the calling thread without any task overhead. Each leaf returns its partial result, and the
+ * halves are combined in index order as they are joined, so the partial results share no memory that workers write to.
+ * </p>
+ */
+public class ParallelArrays {
+
+    /**
+     * Fewest elements per leaf.
+     */
+    public static final int MIN_SEGMENT = 1 << 12;
+
+    /**
+     * Action on the half-open index range [from, to).
+     */
+    @FunctionalInterface
+    public interface RangeConsumer {
+	public void accept(int from, int to);
+    }
+
+    @FunctionalInterface
+    private interface RangeFunction<R> {
+	public R apply(int from, int to);
+    }
+
+    /**
+     * Counts the elements of array for which filter returns true.
+     *
+     * @param array
+     *            - elements to test
+     * @param filter
+     *            - filter to be matched; called concurrently
+     * @return number of matching elements
+     */
+    public static <T> long countIf(T[] array, Predicate<? super T> filter) {
+	return countIf(array.length, i -> array[i], filter);
+    }
+
+    /**
+     * Counts the elements of list for which filter returns true. A list that is not {@link RandomAccess} is copied to an array first.
+     *
+     * @param list
+     *            - elements to test
+     * @param filter
+     *            - filter to be matched; called concurrently
+     * @return number of matching elements
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> long countIf(List<T> list, Predicate<? super T> filter) {
+	if (!(list instanceof RandomAccess)) {
+	    return countIf((T[]) list.toArray(), filter);
+	}
+	return countIf(list.size(), list::get, filter);
+    }
+
+    /**
+     * Reduces array with an associative operator. Ranges are reduced in parallel and their results combined in index order, so the result does not depend on
+     * the number of workers.
+     *
+     * @param array
+     *            - elements to reduce
+     * @param identity
+     *            - identity of op
+     * @param op
+     *            - associative operator; called concurrently
+     * @return identity combined with all elements in order
+     */
+    public static <T> T reduce(T[] array, T identity, BinaryOperator<T> op) {
+	return reduce(array.length, i -> array[i], identity, op);
+    }
+
+    /**
+     * Reduces list with an associative operator, as {@link #reduce(Object[], Object, BinaryOperator)} does. A list that is not {@link RandomAccess} is
+     * copied to an array first.
+     *
+     * @param list
+     *            - elements to reduce
+     * @param identity
+     *            - identity of op
+     * @param op
+     *            - associative operator; called concurrently
+     * @return identity combined with all elements in order
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T reduce(List<T> list, T identity, BinaryOperator<T> op) {
+	if (!(list instanceof RandomAccess)) {
+	    return reduce((T[]) list.toArray(), identity, op);
+	}
+	return reduce(list.size(), list::get, identity, op);
+    }
+
+    /**
+     * Cuts [0, size) into ranges and calls action once per range, in parallel. Returns once every call has returned.
+     *
+     * @param size
+     *            - number of indices
+     * @param action
+     *            - action on each range; called concurrently
+     */
+    public static void forEachRange(int size, RangeConsumer action) {
+	run(size, (from, to) -> {
+	    action.accept(from, to);
+	    return null;
+	}, (a, b) -> null);
+    }
+
+    /**
+     * Calls action once per range of the indices of array, in parallel.
+     *
+     * @param array
+     *            - array whose indices to cover
+     * @param action
+     *            - action on each range; called concurrently
+     */
+    public static <T> void forEachRange(T[] array, RangeConsumer action) {
+	forEachRange(array.length, action);
+    }
+
+    /**
+     * Calls action once per range of the indices of list, in parallel.
+     *
+     * @param list
+     *            - list whose indices to cover
+     * @param action
+     *            - action on each range; called concurrently
+     */
+    public static void forEachRange(List<?> list, RangeConsumer action) {
+	forEachRange(list.size(), action);
+    }
+
+    private static <T> long countIf(int size, IntFunction<? extends T> element, Predicate<? super T> filter) {
+	return run(size, (from, to) -> {
+	    long count = 0;
+	    for (int i = from; i < to; i++) {
+		if (filter.test(element.apply(i))) {
+		    count++;
+		}
+	    }
+	    return count;
+	}, Long::sum);
+    }
+
+    private static <T> T reduce(int size, IntFunction<? extends T> element, T identity, BinaryOperator<T> op) {
+	return run(size, (from, to) -> {
+	    T result = identity;
+	    for (int i = from; i < to; i++) {
+		result = op.apply(result, element.apply(i));
+	    }
+	    return result;
+	}, op);
+    }
+
+    /**
+     * Returns the length below which a range is not split, aiming at four leaves per worker of the common pool and at no fewer than {@value #MIN_SEGMENT}
+     * elements per leaf.
+     */
+    private static int threshold(int size) {
+	return Math.max(size / (ForkJoinPool.getCommonPoolParallelism() << 2), MIN_SEGMENT);
+    }
+
+    private static <R> R run(int size, RangeFunction<R> leaf, BinaryOperator<R> combiner) {
+	int threshold = threshold(size);
+	if (size <= threshold) {
+	    return leaf.apply(0, size);
+	}
+	return new RangeTask<>(leaf, combiner, threshold, 0, size).invoke();
+    }
+
+    private static class RangeTask<R> extends RecursiveTask<R> {
+	private static final long serialVersionUID = 5204870186417536591L;
+
+	private final RangeFunction<R> leaf;
+	private final BinaryOperator<R> combiner;
+	private final int threshold;
+	private final int from;
+	private final int to;
+
+	RangeTask(RangeFunction<R> leaf, BinaryOperator<R> combiner, int threshold, int from, int to) {
+	    this.leaf = leaf;
+	    this.combiner = combiner;
+	    this.threshold = threshold;
+	    this.from = from;
+	    this.to = to;
+	}
+
+	@Override
+	protected R compute() {
+	    if (to - from <= threshold) {
+		return leaf.apply(from, to);
+	    }
+	    int mid = (from + to) >>> 1;
+	    RangeTask<R> left = new RangeTask<>(leaf, combiner, threshold, from, mid);
+	    left.fork();
+	    R right = new RangeTask<>(leaf, combiner, threshold, mid, to).compute();
+	    return combiner.apply(left.join(), right);
+	}
+    }
+}
@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.Predicate;
+
+public interface PredicateEx<T> {
+    public boolean test(T t) throws Exception;
+
+    /**
+     * Turns f into a {@link Predicate} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - predicate to convert exceptions for
+     * @return Predicate that does not throw any checked exceptions
+     */
+    public static <T> Predicate<T> uncheck(PredicateEx<T> f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(PredicateEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - predicate to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return Predicate that does not declare any checked exceptions
+     */
+    public static <T> Predicate<T> uncheck(PredicateEx<T> f, UncheckMode mode) {
+	return t -> {
+	    try {
+		return f.test(t);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
@@ -0,0 +1,136 @@
+package com.horstmann.java8;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator that passes the elements of its source through unchanged and reports them to a {@link StreamProbe}. It is its own consumer of the source, so
+ * no object is allocated per element or per call.
+ */
+class ProbeSpliterator<T> implements Spliterator<T>, Consumer<T> {
+
+    /**
+     * Elements counted locally before they are added to the shared counter.
+     */
+    static final int FLUSH_INTERVAL = 1024;
+
+    private final Spliterator<T> source;
+    private final StreamProbe probe;
+
+    private boolean started;
+    private boolean exhausted;
+    private int sampleMask;
+    private long count;
+    private long flushed;
+    private Consumer<? super T> action;
+
+    ProbeSpliterator(Spliterator<T> source, StreamProbe probe) {
+	this.source = source;
+	this.probe = probe;
+    }
+
+    /**
+     * Counts the traversal and binds the sample interval at the first element requested, as the pipeline may be built before the interval is set.
+     */
+    private void start() {
+	if (!started) {
+	    started = true;
+	    sampleMask = probe.sampleMask();
+	    probe.traversals.increment();
+	}
+    }
+
+    /**
+     * Counts the end of the traversal once, however often the source is asked again after it has no more elements.
+     */
+    private void exhaust() {
+	if (!exhausted) {
+	    exhausted = true;
+	    probe.exhaustedTraversals.increment();
+	}
+    }
+
+    private void flush() {
+	probe.elements.add(count - flushed);
+	flushed = count;
+    }
+
+    @Override
+    public void accept(T t) {
+	if (sampleMask >= 0 && (count & sampleMask) == 0) {
+	    count++;
+	    long start = System.nanoTime();
+	    action.accept(t);
+	    long nanos = System.nanoTime() - start;
+	    probe.samples.increment();
+	    probe.sampledNanos.add(nanos);
+	    probe.maxNanos.accumulate(nanos);
+	} else {
+	    count++;
+	    action.accept(t);
+	}
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+	start();
+	this.action = action;
+	boolean advanced = false;
+	try {
+	    advanced = source.tryAdvance(this);
+	} finally {
+	    this.action = null;
+	    if (!advanced || count - flushed >= FLUSH_INTERVAL) {
+		flush();
+	    }
+	}
+	if (!advanced) {
+	    exhaust();
+	}
+	return advanced;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+	start();
+	this.action = action;
+	try {
+	    source.forEachRemaining(this);
+	    exhaust();
+	} finally {
+	    this.action = null;
+	    flush();
+	}
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+	Spliterator<T> prefix = source.trySplit();
+	if (prefix == null) {
+	    return null;
+	}
+	probe.splits.increment();
+	return new ProbeSpliterator<>(prefix, probe);
+    }
+
+    @Override
+    public long estimateSize() {
+	return source.estimateSize();
+    }
+
+    @Override
+    public long getExactSizeIfKnown() {
+	return source.getExactSizeIfKnown();
+    }
+
+    @Override
+    public int characteristics() {
+	return source.characteristics();
+    }
+
+    @Override
+    public Comparator<? super T> getComparator() {
+	return source.getComparator();
+    }
+}
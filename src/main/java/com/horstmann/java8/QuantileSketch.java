@@ -0,0 +1,196 @@
+package com.horstmann.java8;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * Fixed-memory sketch of a distribution of doubles that answers quantile queries with a bounded relative error, in the manner of DDSketch.
+ *
+ * <p>
+ * A positive value x is counted in bucket ceil(log(x) / log(gamma)) with gamma = (1 + accuracy) / (1 - accuracy), so every value in a bucket lies within
+ * the relative accuracy of the bucket's representative value. Negative values are counted by magnitude in a second set of buckets, and zeros on their own.
+ * Each set keeps at most maxBuckets consecutive buckets; when values span more than that, the lowest buckets are collapsed into one, which costs
+ * accuracy only for the values closest to zero. NaN and infinite values are not recorded.
+ * </p>
+ *
+ * <p>
+ * While no buckets have been collapsed, sketches with the same parameters merge exactly, so the result of a parallel collection does not depend on how
+ * the stream was split. Once they have, that is no longer guaranteed: quantiles above the collapsed bucket keep the relative accuracy, but a quantile that
+ * falls into it is only known to lie between its exact value, less the relative accuracy, and the value of the collapsed bucket, which is within a
+ * factor of gamma<sup>maxBuckets - 2</sup> below the largest magnitude recorded.
+ * </p>
+ */
+public class QuantileSketch implements DoubleConsumer {
+
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+    public static final int DEFAULT_MAX_BUCKETS = 2048;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double inverseLogGamma;
+    private final Buckets positive;
+    private final Buckets negative;
+    private long zeros;
+
+    public QuantileSketch() {
+	this(DEFAULT_RELATIVE_ACCURACY, DEFAULT_MAX_BUCKETS);
+    }
+
+    /**
+     * @param relativeAccuracy
+     *            - bound on the relative error of quantiles, in (0, 1)
+     * @param maxBuckets
+     *            - most buckets kept for positive and for negative values each
+     */
+    public QuantileSketch(double relativeAccuracy, int maxBuckets) {
+	if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+	    throw new IllegalArgumentException("Relative accuracy must lie in (0, 1): " + relativeAccuracy);
+	}
+	if (maxBuckets <= 0) {
+	    throw new IllegalArgumentException("Bucket count must be positive: " + maxBuckets);
+	}
+	this.relativeAccuracy = relativeAccuracy;
+	this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+	this.inverseLogGamma = 1 / Math.log(gamma);
+	this.positive = new Buckets(maxBuckets);
+	this.negative = new Buckets(maxBuckets);
+    }
+
+    @Override
+    public void accept(double value) {
+	if (value > 0 && value != Double.POSITIVE_INFINITY) {
+	    positive.add(index(value), 1);
+	} else if (value < 0 && value != Double.NEGATIVE_INFINITY) {
+	    negative.add(index(-value), 1);
+	} else if (value == 0) {
+	    zeros++;
+	}
+    }
+
+    private int index(double magnitude) {
+	return (int) Math.ceil(Math.log(magnitude) * inverseLogGamma);
+    }
+
+    private double value(int index) {
+	return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    /**
+     * Adds the counts of other to this sketch.
+     *
+     * @param other
+     *            - sketch with the same relative accuracy and bucket limit
+     */
+    public void combine(QuantileSketch other) {
+	if (other.relativeAccuracy != relativeAccuracy || other.positive.counts.length != positive.counts.length) {
+	    throw new IllegalArgumentException("Cannot combine sketches with different parameters");
+	}
+	positive.addAll(other.positive);
+	negative.addAll(other.negative);
+	zeros += other.zeros;
+    }
+
+    public long getCount() {
+	return positive.total + negative.total + zeros;
+    }
+
+    public double getRelativeAccuracy() {
+	return relativeAccuracy;
+    }
+
+    /**
+     * Returns an estimate of the q-quantile, the value whose rank is q * (count - 1) in sorted order.
+     *
+     * @param q
+     *            - quantile in [0, 1]
+     * @return value within the relative accuracy of the exact quantile, unless it fell into merged buckets; NaN if the sketch is empty
+     */
+    public double getQuantile(double q) {
+	if (!(q >= 0 && q <= 1)) {
+	    throw new IllegalArgumentException("Quantile must lie in [0, 1]: " + q);
+	}
+	long count = getCount();
+	if (count == 0) {
+	    return Double.NaN;
+	}
+	long rank = (long) (q * (count - 1));
+	if (rank < negative.total) {
+	    return -value(negative.indexOfRank(negative.total - 1 - rank));
+	}
+	rank -= negative.total;
+	if (rank < zeros) {
+	    return 0;
+	}
+	return value(positive.indexOfRank(rank - zeros));
+    }
+
+    /**
+     * Counts of a window of at most counts.length consecutive bucket indices, starting at offset.
+     */
+    private static class Buckets {
+	private long[] counts;
+	private int offset;
+	private int minIndex;
+	private int maxIndex;
+	private long total;
+
+	Buckets(int maxBuckets) {
+	    counts = new long[maxBuckets];
+	}
+
+	void add(int index, long count) {
+	    if (total == 0) {
+		minIndex = maxIndex = index;
+		if (index < offset || index >= offset + counts.length) {
+		    offset = index;
+		}
+	    } else if (index < offset || index >= offset + counts.length) {
+		int lo = Math.min(minIndex, index);
+		int hi = Math.max(maxIndex, index);
+		reindex(hi - lo < counts.length ? (index < offset ? lo : hi - counts.length + 1) : hi - counts.length + 1);
+	    }
+	    if (index < offset) {
+		index = offset;
+	    }
+	    counts[index - offset] += count;
+	    total += count;
+	    minIndex = Math.max(Math.min(minIndex, index), offset);
+	    maxIndex = Math.max(maxIndex, index);
+	}
+
+	/**
+	 * Moves the window to start at newOffset, merging the counts of buckets below it into its first bucket.
+	 */
+	private void reindex(int newOffset) {
+	    long[] moved = new long[counts.length];
+	    for (int i = minIndex; i <= maxIndex; i++) {
+		moved[Math.max(i, newOffset) - newOffset] += counts[i - offset];
+	    }
+	    counts = moved;
+	    offset = newOffset;
+	    minIndex = Math.max(minIndex, newOffset);
+	    maxIndex = Math.max(maxIndex, newOffset);
+	}
+
+	void addAll(Buckets other) {
+	    if (other.total == 0) {
+		return;
+	    }
+	    for (int i = other.minIndex; i <= other.maxIndex; i++) {
+		long count = other.counts[i - other.offset];
+		if (count != 0) {
+		    add(i, count);
+		}
+	    }
+	}
+
+	int indexOfRank(long rank) {
+	    for (int i = minIndex; i < maxIndex; i++) {
+		rank -= counts[i - offset];
+		if (rank < 0) {
+		    return i;
+		}
+	    }
+	    return maxIndex;
+	}
+    }
+}
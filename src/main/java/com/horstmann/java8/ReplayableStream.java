@@ -0,0 +1,442 @@
+package com.horstmann.java8;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Records the elements of a stream as they are first pulled, so that the stream can be traversed any number of times. Each call of {@link #replay()}
+ * returns a new stream over all elements; the source is advanced only when a replay needs an element that has not been recorded yet, so replays may run
+ * concurrently with the first pass, and the source is traversed at most once.
+ *
+ * <p>
+ * Elements are recorded in segments of fixed size. At most a fixed number of segments are kept on the heap; older ones are written with a {@link Serializer}
+ * to a temporary file and read back through a memory mapping when a replay reaches them; the mapping covers a window of the file and is reused for the
+ * segments that fall inside it. Once {@link #seal()} has declared that no more replays will be started, segments that every open replay has passed are
+ * dropped, and the file space they took is reused once it is at least as large as what is still needed. Closing the cache closes the source stream and
+ * deletes the file.
+ * </p>
+ */
+public class ReplayableStream<T> implements AutoCloseable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 1024;
+    public static final int DEFAULT_SEGMENTS_IN_MEMORY = 64;
+
+    private static final int MAP_WINDOW = 1 << 24;
+    private static final int COPY_BUFFER = 1 << 16;
+
+    /**
+     * Writes elements to and reads them from the spill file.
+     */
+    public interface Serializer<T> {
+	public void write(DataOutput out, T element) throws IOException;
+
+	public T read(DataInput in) throws IOException;
+
+	/**
+	 * Returns a serializer for strings of up to 65535 bytes in modified UTF-8.
+	 */
+	public static Serializer<String> strings() {
+	    return new Serializer<String>() {
+		@Override
+		public void write(DataOutput out, String element) throws IOException {
+		    out.writeUTF(element);
+		}
+
+		@Override
+		public String read(DataInput in) throws IOException {
+		    return in.readUTF();
+		}
+	    };
+	}
+
+	/**
+	 * Returns a serializer that writes each element with Java serialization, prefixed by its length. Elements must be {@link java.io.Serializable}.
+	 */
+	public static <T> Serializer<T> serializable() {
+	    return new Serializer<T>() {
+		@Override
+		public void write(DataOutput out, T element) throws IOException {
+		    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		    try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+			objects.writeObject(element);
+		    }
+		    out.writeInt(bytes.size());
+		    out.write(bytes.toByteArray());
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T read(DataInput in) throws IOException {
+		    byte[] bytes = new byte[in.readInt()];
+		    in.readFully(bytes);
+		    try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return (T) objects.readObject();
+		    } catch (ClassNotFoundException e) {
+			throw new IOException(e);
+		    }
+		}
+	    };
+	}
+    }
+
+    private static class Segment {
+	Object[] elements;
+	long filePosition;
+	int fileLength;
+    }
+
+    private final Stream<T> stream;
+    private final Spliterator<T> source;
+    private final int segmentSize;
+    private final int maxSegmentsInMemory;
+    private final Serializer<T> serializer;
+
+    /**
+     * Segments from firstSegment on; dropped segments are removed from the front.
+     */
+    private final List<Segment> segments = new ArrayList<>();
+    private final List<Replay> replays = new ArrayList<>();
+    private long recorded;
+    private boolean complete;
+    private boolean sealed;
+    private boolean closed;
+    private int segmentsInMemory;
+    private int firstSegment;
+    private int nextToSpill;
+    private FileChannel file;
+    private long fileSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    /**
+     * @param stream
+     *            - stream to record
+     * @param segmentSize
+     *            - elements per segment
+     * @param maxSegmentsInMemory
+     *            - segments kept on the heap before older ones are spilled; at least 1
+     * @param serializer
+     *            - writes spilled elements
+     */
+    public ReplayableStream(Stream<T> stream, int segmentSize, int maxSegmentsInMemory, Serializer<T> serializer) {
+	if (segmentSize <= 0 || maxSegmentsInMemory <= 0) {
+	    throw new IllegalArgumentException("Segment size and segments in memory must be positive: " + segmentSize + ", " + maxSegmentsInMemory);
+	}
+	this.stream = stream;
+	this.source = stream.spliterator();
+	this.segmentSize = segmentSize;
+	this.maxSegmentsInMemory = maxSegmentsInMemory;
+	this.serializer = serializer;
+    }
+
+    /**
+     * Returns a sequential stream over all elements of the source, from the first one. Closing the returned stream, or traversing it to the end, releases
+     * its hold on the recorded segments.
+     *
+     * @return new replay of the source
+     * @throws IllegalStateException
+     *             if the cache is sealed or closed
+     */
+    public synchronized Stream<T> replay() {
+	if (closed || sealed) {
+	    throw new IllegalStateException(closed ? "Cache is closed" : "Cache is sealed");
+	}
+	Replay replay = new Replay();
+	replays.add(replay);
+	return StreamSupport.stream(replay, false).onClose(() -> release(replay));
+    }
+
+    /**
+     * Declares that {@link #replay()} will not be called again, so that segments passed by every open replay can be dropped.
+     */
+    public synchronized void seal() {
+	sealed = true;
+	evict();
+    }
+
+    /**
+     * Closes the source stream and deletes the spill file. Open replays fail on their next access to the cache.
+     */
+    @Override
+    public synchronized void close() {
+	if (closed) {
+	    return;
+	}
+	closed = true;
+	segments.clear();
+	replays.clear();
+	window = null;
+	try {
+	    stream.close();
+	} finally {
+	    if (file != null) {
+		try {
+		    file.close();
+		} catch (IOException e) {
+		    throw new UncheckedIOException(e);
+		}
+	    }
+	}
+    }
+
+    synchronized int segmentsInMemory() {
+	return segmentsInMemory;
+    }
+
+    synchronized int segmentsRetained() {
+	return segments.size();
+    }
+
+    synchronized long spilledBytes() {
+	return fileSize;
+    }
+
+    synchronized long recorded() {
+	return recorded;
+    }
+
+    /**
+     * Points replay at the segment holding its next element, recording elements from the source as needed.
+     *
+     * @return false if the source has no element at the position of replay
+     */
+    private synchronized boolean fetch(Replay replay) {
+	if (closed) {
+	    throw new IllegalStateException("Cache is closed");
+	}
+	long position = replay.position;
+	while (position >= recorded && !complete) {
+	    if (!source.tryAdvance(this::record)) {
+		complete = true;
+	    }
+	}
+	if (position >= recorded) {
+	    return false;
+	}
+	int index = (int) (position / segmentSize);
+	if (index < firstSegment) {
+	    throw new IllegalStateException("Segment " + index + " was evicted");
+	}
+	Segment segment = segments.get(index - firstSegment);
+	replay.segment = index;
+	replay.elements = segment.elements != null ? segment.elements : load(segment);
+	replay.offset = (int) (position - (long) index * segmentSize);
+	replay.limit = (int) Math.min(recorded - (long) index * segmentSize, segmentSize);
+	evict();
+	return true;
+    }
+
+    private void record(T element) {
+	int offset = (int) (recorded % segmentSize);
+	if (offset == 0) {
+	    Segment segment = new Segment();
+	    segment.elements = new Object[segmentSize];
+	    segments.add(segment);
+	    segmentsInMemory++;
+	    spill();
+	}
+	segments.get(segments.size() - 1).elements[offset] = element;
+	recorded++;
+    }
+
+    /**
+     * Writes the oldest complete segments to the spill file until no more than maxSegmentsInMemory are left on the heap.
+     */
+    private void spill() {
+	while (segmentsInMemory > maxSegmentsInMemory && nextToSpill < firstSegment + segments.size() - 1) {
+	    Segment segment = segments.get(nextToSpill++ - firstSegment);
+	    try {
+		if (file == null) {
+		    file = FileChannel.open(Files.createTempFile("replay", ".bin"), StandardOpenOption.READ, StandardOpenOption.WRITE,
+			    StandardOpenOption.DELETE_ON_CLOSE);
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		for (Object element : segment.elements) {
+		    @SuppressWarnings("unchecked")
+		    T t = (T) element;
+		    serializer.write(out, t);
+		}
+		out.flush();
+		ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+		segment.filePosition = fileSize;
+		segment.fileLength = buffer.remaining();
+		while (buffer.hasRemaining()) {
+		    fileSize += file.write(buffer, fileSize);
+		}
+	    } catch (IOException e) {
+		throw new UncheckedIOException(e);
+	    }
+	    segment.elements = null;
+	    segmentsInMemory--;
+	}
+    }
+
+    /**
+     * Reads a spilled segment back, mapping a new window of the file only if the segment lies outside the current one. A window covers only bytes written
+     * before it was mapped.
+     */
+    private Object[] load(Segment segment) {
+	try {
+	    if (window == null || segment.filePosition < windowStart || segment.filePosition + segment.fileLength > windowStart + window.capacity()) {
+		windowStart = segment.filePosition;
+		window = file.map(MapMode.READ_ONLY, windowStart, Math.max(Math.min(fileSize - windowStart, MAP_WINDOW), segment.fileLength));
+	    }
+	    ByteBuffer bytes = window.duplicate();
+	    bytes.position((int) (segment.filePosition - windowStart));
+	    bytes.limit(bytes.position() + segment.fileLength);
+	    DataInputStream in = new DataInputStream(new ByteBufferInputStream(bytes));
+	    Object[] elements = new Object[segmentSize];
+	    for (int i = 0; i < segmentSize; i++) {
+		elements[i] = serializer.read(in);
+	    }
+	    return elements;
+	} catch (IOException e) {
+	    throw new UncheckedIOException(e);
+	}
+    }
+
+    /**
+     * Drops the segments before the earliest segment still in use by an open replay, once the cache is sealed.
+     */
+    private void evict() {
+	if (!sealed) {
+	    return;
+	}
+	int firstInUse = firstSegment + segments.size() - 1;
+	for (Replay replay : replays) {
+	    firstInUse = Math.min(firstInUse, replay.segment);
+	}
+	if (firstInUse <= firstSegment) {
+	    return;
+	}
+	List<Segment> evicted = segments.subList(0, firstInUse - firstSegment);
+	for (Segment segment : evicted) {
+	    if (segment.elements != null) {
+		segmentsInMemory--;
+	    }
+	}
+	evicted.clear();
+	firstSegment = firstInUse;
+	nextToSpill = Math.max(nextToSpill, firstSegment);
+	recycle();
+    }
+
+    /**
+     * Moves the spilled segments still retained, which are the ones before nextToSpill, to the start of the spill file once the space of the dropped ones
+     * in front of them is at least as large, so that later spills reuse it. No more bytes are moved than were dropped, so moving costs at most as much as
+     * spilling did.
+     */
+    private void recycle() {
+	if (file == null) {
+	    return;
+	}
+	long liveStart = nextToSpill > firstSegment ? segments.get(0).filePosition : fileSize;
+	long live = fileSize - liveStart;
+	if (liveStart == 0 || liveStart < live) {
+	    return;
+	}
+	window = null;
+	try {
+	    ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(live, COPY_BUFFER));
+	    long moved = 0;
+	    while (moved < live) {
+		buffer.clear();
+		buffer.limit((int) Math.min(buffer.capacity(), live - moved));
+		file.read(buffer, liveStart + moved);
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+		    moved += file.write(buffer, moved);
+		}
+	    }
+	} catch (IOException e) {
+	    throw new UncheckedIOException(e);
+	}
+	for (int i = 0; i < nextToSpill - firstSegment; i++) {
+	    segments.get(i).filePosition -= liveStart;
+	}
+	fileSize = live;
+    }
+
+    private synchronized void release(Replay replay) {
+	replays.remove(replay);
+	evict();
+    }
+
+    private class Replay extends Spliterators.AbstractSpliterator<T> {
+	long position;
+	int segment;
+	Object[] elements;
+	int offset;
+	int limit;
+	boolean done;
+
+	Replay() {
+	    super(Long.MAX_VALUE, Spliterator.ORDERED);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean tryAdvance(Consumer<? super T> action) {
+	    if (done) {
+		return false;
+	    }
+	    if (offset >= limit && !fetch(this)) {
+		done = true;
+		release(this);
+		return false;
+	    }
+	    position++;
+	    action.accept((T) elements[offset++]);
+	    return true;
+	}
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+	private final ByteBuffer buffer;
+
+	ByteBufferInputStream(ByteBuffer buffer) {
+	    this.buffer = buffer;
+	}
+
+	@Override
+	public int read() {
+	    return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+	}
+
+	@Override
+	public int read(byte[] bytes, int offset, int length) {
+	    if (length == 0) {
+		return 0;
+	    }
+	    if (!buffer.hasRemaining()) {
+		return -1;
+	    }
+	    int count = Math.min(length, buffer.remaining());
+	    buffer.get(bytes, offset, count);
+	    return count;
+	}
+    }
+}
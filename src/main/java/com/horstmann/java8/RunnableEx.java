@@ -11,11 +11,25 @@ public interface RunnableEx {
      * @return Runnable that does not throw any checked exceptions.
      */
     public static Runnable uncheck(RunnableEx r) {
+	return uncheck(r, UncheckMode.WRAP);
+    }
+
+    /**
+     * Turns r into a Runnable that propagates any exception thrown by {@link RunnableEx#run()} as mode prescribes, for example without capturing a second
+     * stack trace on a hot path.
+     *
+     * @param r
+     *            - Runnable to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return Runnable that does not declare any checked exceptions.
+     */
+    public static Runnable uncheck(RunnableEx r, UncheckMode mode) {
 	return () -> {
 	    try {
 		r.run();
 	    } catch (Exception e) {
-		throw new RuntimeException(e);
+		throw mode.propagate(e);
 	    }
 	};
     }
@@ -0,0 +1,174 @@
+package com.horstmann.java8;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runnable that runs a flat array of stages in order. Pipelines added to a pipeline are inlined, so composing thousands of runnables costs one loop with a
+ * call per stage and no nesting, however the pipeline was built.
+ *
+ * <p>
+ * Pipelines are immutable. {@link #then(Runnable)} returns a new pipeline, but shares the backing array with this one when nothing has been appended to this
+ * pipeline yet, so growing a chain one stage at a time takes amortized constant time per stage.
+ * </p>
+ */
+public final class RunnablePipeline implements Runnable {
+
+    private final Runnable[] stages;
+    private final int size;
+
+    /**
+     * Number of slots of stages in use by some pipeline; only the pipeline whose size equals it may append in place.
+     */
+    private final AtomicInteger claimed;
+
+    private RunnablePipeline(Runnable[] stages, int size, AtomicInteger claimed) {
+	this.stages = stages;
+	this.size = size;
+	this.claimed = claimed;
+    }
+
+    /**
+     * Returns a pipeline running runnables in the given order.
+     *
+     * @param runnables
+     *            - stages to run; pipelines among them are flattened
+     * @return pipeline of the given stages
+     */
+    public static RunnablePipeline of(Runnable... runnables) {
+	if (runnables.length == 1 && runnables[0] instanceof RunnablePipeline) {
+	    return (RunnablePipeline) runnables[0];
+	}
+	Builder builder = new Builder();
+	for (Runnable runnable : runnables) {
+	    builder.then(runnable);
+	}
+	return builder.build();
+    }
+
+    public static Builder builder() {
+	return new Builder();
+    }
+
+    /**
+     * Runs every stage in order in the calling thread. An exception thrown by a stage stops the pipeline.
+     */
+    @Override
+    public void run() {
+	Runnable[] stages = this.stages;
+	for (int i = 0; i < size; i++) {
+	    stages[i].run();
+	}
+    }
+
+    /**
+     * Returns a pipeline that runs this pipeline, then stage. This pipeline is left unchanged.
+     *
+     * @param stage
+     *            - runnable to run last; a pipeline is flattened
+     * @return pipeline with stage appended
+     */
+    public RunnablePipeline then(Runnable stage) {
+	Objects.requireNonNull(stage);
+	Runnable[] added = stage instanceof RunnablePipeline ? ((RunnablePipeline) stage).stages : new Runnable[] { stage };
+	int count = stage instanceof RunnablePipeline ? ((RunnablePipeline) stage).size : 1;
+	int newSize = size + count;
+	if (newSize <= stages.length && claimed.compareAndSet(size, newSize)) {
+	    System.arraycopy(added, 0, stages, size, count);
+	    return new RunnablePipeline(stages, newSize, claimed);
+	}
+	Runnable[] grown = new Runnable[Math.max(newSize, size * 2)];
+	System.arraycopy(stages, 0, grown, 0, size);
+	System.arraycopy(added, 0, grown, size, count);
+	return new RunnablePipeline(grown, newSize, new AtomicInteger(newSize));
+    }
+
+    /**
+     * Returns the number of stages.
+     *
+     * @return number of stages
+     */
+    public int size() {
+	return size;
+    }
+
+    /**
+     * Runs the stages in order as a single task on executor.
+     *
+     * @param executor
+     *            - executor to run the pipeline on
+     * @return future completed when the last stage has run, or exceptionally with the first failure
+     */
+    public CompletableFuture<Void> runAsync(Executor executor) {
+	return CompletableFuture.runAsync(this, executor);
+    }
+
+    /**
+     * Runs the stages as independent tasks on executor. Stages are grouped into batches of batchSize consecutive stages; each batch is one task that runs
+     * its stages in order, and the batches run in parallel. The returned future is the only join point.
+     *
+     * @param executor
+     *            - executor to run the batches on
+     * @param batchSize
+     *            - number of stages per submitted task
+     * @return future completed when every batch has finished, or exceptionally if a stage failed
+     */
+    public CompletableFuture<Void> runIndependently(Executor executor, int batchSize) {
+	if (batchSize <= 0) {
+	    throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+	}
+	CompletableFuture<?>[] batches = new CompletableFuture<?>[(size + batchSize - 1) / batchSize];
+	for (int i = 0; i < batches.length; i++) {
+	    int from = i * batchSize;
+	    int to = Math.min(from + batchSize, size);
+	    batches[i] = CompletableFuture.runAsync(() -> {
+		for (int j = from; j < to; j++) {
+		    stages[j].run();
+		}
+	    }, executor);
+	}
+	return CompletableFuture.allOf(batches);
+    }
+
+    public static final class Builder {
+	private Runnable[] stages = new Runnable[8];
+	private int size;
+
+	private Builder() {
+	}
+
+	/**
+	 * Appends a stage. If stage is itself a pipeline, its stages are appended instead.
+	 *
+	 * @param stage
+	 *            - runnable to run after the stages added so far
+	 * @return this builder
+	 */
+	public Builder then(Runnable stage) {
+	    Objects.requireNonNull(stage);
+	    if (stage instanceof RunnablePipeline) {
+		RunnablePipeline inlined = (RunnablePipeline) stage;
+		ensureCapacity(size + inlined.size);
+		System.arraycopy(inlined.stages, 0, stages, size, inlined.size);
+		size += inlined.size;
+	    } else {
+		ensureCapacity(size + 1);
+		stages[size++] = stage;
+	    }
+	    return this;
+	}
+
+	private void ensureCapacity(int capacity) {
+	    if (capacity > stages.length) {
+		stages = Arrays.copyOf(stages, Math.max(capacity, stages.length * 2));
+	    }
+	}
+
+	public RunnablePipeline build() {
+	    return new RunnablePipeline(Arrays.copyOf(stages, size), size, new AtomicInteger(size));
+	}
+    }
+}
@@ -0,0 +1,58 @@
+package com.horstmann.java8;
+
+import java.util.stream.Stream;
+
+/**
+ * Result of {@link Streams#probeSize(Stream, long, long)}: what is known about the size of a stream, and a stream with all its elements, including the
+ * ones buffered while probing.
+ */
+public class SizeProbe<T> {
+
+    public enum Kind {
+	/**
+	 * The stream has exactly {@link SizeProbe#getSize()} elements.
+	 */
+	EXACT,
+	/**
+	 * The stream has at least {@link SizeProbe#getSize()} elements; the budget ran out before its end was found.
+	 */
+	AT_LEAST,
+	/**
+	 * Nothing is known about the size of the stream.
+	 */
+	UNKNOWN
+    }
+
+    private final Kind kind;
+    private final long size;
+    private final Stream<T> stream;
+
+    SizeProbe(Kind kind, long size, Stream<T> stream) {
+	this.kind = kind;
+	this.size = size;
+	this.stream = stream;
+    }
+
+    public Kind getKind() {
+	return kind;
+    }
+
+    /**
+     * Returns the exact size or the lower bound, depending on {@link #getKind()}, or 0 if the size is unknown.
+     */
+    public long getSize() {
+	return size;
+    }
+
+    /**
+     * Returns a stream of all elements of the probed stream, which must be used instead of it. Closing it closes the probed stream.
+     */
+    public Stream<T> getStream() {
+	return stream;
+    }
+
+    @Override
+    public String toString() {
+	return kind == Kind.UNKNOWN ? "UNKNOWN" : kind + "(" + size + ")";
+    }
+}
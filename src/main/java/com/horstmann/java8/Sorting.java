@@ -0,0 +1,204 @@
+package com.horstmann.java8;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Sorts that call key extractors once per element instead of twice per comparison, for keys that are expensive to compute, such as file attributes.
+ *
+ * <p>
+ * Keys are extracted in parallel into side arrays, the side arrays are sorted with {@link Arrays#parallelSort}, and the elements are then permuted into the
+ * sorted order. All sorts are stable. Primitive keys are packed together with the original index into a long[], so sorting them compares longs without any
+ * boxing; this needs the key range and the index to fit into 63 bits together, and long keys that do not fit are sorted as objects holding a primitive key.
+ * Composite keys pack their leading primitive components the same way, see {@link #sortByKeys}.
+ * </p>
+ */
+public class Sorting {
+
+    private static final class Decorated {
+	final long prefix;
+	final int index;
+
+	Decorated(long prefix, int index) {
+	    this.prefix = prefix;
+	    this.index = index;
+	}
+    }
+
+    private static final class LongKeyed {
+	final long key;
+	final int index;
+
+	LongKeyed(long key, int index) {
+	    this.key = key;
+	    this.index = index;
+	}
+    }
+
+    /**
+     * Sorts array by the keys, compared in order, each extracted once per element.
+     *
+     * <p>
+     * Leading keys whose values are all Booleans, Characters or integral numbers, such as a directory flag, are packed into a long prefix, compared as one
+     * long; if every key packs and leaves room for the index, the whole sort runs on a long[]. The remaining keys stay boxed: an arbitrary Comparable has no
+     * primitive form, so they are kept in one column per key and compared through compareTo.
+     * </p>
+     *
+     * @param array
+     *            - elements to sort in place
+     * @param keys
+     *            - extractors of non-null keys; later keys break ties of earlier ones; called concurrently
+     */
+    @SafeVarargs
+    public static <T> void sortByKeys(T[] array, Function<? super T, ? extends Comparable<?>>... keys) {
+	int n = array.length;
+	Object[][] columns = new Object[keys.length][n];
+	IntStream.range(0, n).parallel().forEach(i -> {
+	    T element = array[i];
+	    for (int k = 0; k < columns.length; k++) {
+		columns[k][i] = keys[k].apply(element);
+	    }
+	});
+	long[] mins = new long[columns.length];
+	int[] widths = new int[columns.length];
+	int packedColumns = 0;
+	int bits = 0;
+	while (n > 0 && packedColumns < columns.length && isPrimitive(columns[packedColumns])) {
+	    Object[] column = columns[packedColumns];
+	    long min = Long.MAX_VALUE;
+	    long max = Long.MIN_VALUE;
+	    for (Object value : column) {
+		min = Math.min(min, primitive(value));
+		max = Math.max(max, primitive(value));
+	    }
+	    int width = 64 - Long.numberOfLeadingZeros(max - min);
+	    if (max - min < 0 || bits + width > 63) {
+		break;
+	    }
+	    mins[packedColumns] = min;
+	    widths[packedColumns] = width;
+	    bits += width;
+	    packedColumns++;
+	}
+	int prefixColumns = packedColumns;
+	long[] prefix = new long[n];
+	Arrays.parallelSetAll(prefix, i -> {
+	    long packed = 0;
+	    for (int k = 0; k < prefixColumns; k++) {
+		packed = packed << widths[k] | (primitive(columns[k][i]) - mins[k]);
+	    }
+	    return packed;
+	});
+	int indexBits = 64 - Long.numberOfLeadingZeros(Math.max(n - 1, 1));
+	if (prefixColumns == columns.length && bits + indexBits <= 63) {
+	    Arrays.parallelSetAll(prefix, i -> prefix[i] << indexBits | i);
+	    Arrays.parallelSort(prefix);
+	    permute(array, prefix, (1L << indexBits) - 1);
+	    return;
+	}
+	Decorated[] decorated = new Decorated[n];
+	Arrays.parallelSetAll(decorated, i -> new Decorated(prefix[i], i));
+	Arrays.parallelSort(decorated, (a, b) -> {
+	    int c = Long.compare(a.prefix, b.prefix);
+	    for (int k = prefixColumns; c == 0 && k < columns.length; k++) {
+		c = compare(columns[k][a.index], columns[k][b.index]);
+	    }
+	    return c;
+	});
+	T[] original = array.clone();
+	for (int i = 0; i < n; i++) {
+	    array[i] = original[decorated[i].index];
+	}
+    }
+
+    /**
+     * Sorts array by an int key, extracted once per element and sorted packed with the element's index into a long.
+     *
+     * @param array
+     *            - elements to sort in place
+     * @param key
+     *            - extractor of the key; called concurrently
+     */
+    public static <T> void sortByIntKey(T[] array, ToIntFunction<? super T> key) {
+	long[] packed = new long[array.length];
+	Arrays.parallelSetAll(packed, i -> (long) key.applyAsInt(array[i]) << 32 | i);
+	Arrays.parallelSort(packed);
+	permute(array, packed, 0xFFFFFFFFL);
+    }
+
+    /**
+     * Sorts array by a long key, extracted once per element. If the range of the keys leaves room for the index in a long, key and index are packed and
+     * sorted as longs; otherwise they are sorted as pairs.
+     *
+     * @param array
+     *            - elements to sort in place
+     * @param key
+     *            - extractor of the key; called concurrently
+     */
+    public static <T> void sortByLongKey(T[] array, ToLongFunction<? super T> key) {
+	long[] keys = new long[array.length];
+	Arrays.parallelSetAll(keys, i -> key.applyAsLong(array[i]));
+	long min = Long.MAX_VALUE;
+	long max = Long.MIN_VALUE;
+	for (long k : keys) {
+	    min = Math.min(min, k);
+	    max = Math.max(max, k);
+	}
+	int indexBits = 64 - Long.numberOfLeadingZeros(Math.max(array.length - 1, 1));
+	long range = max - min;
+	if (array.length > 0 && range >= 0 && range >>> (63 - indexBits) == 0) {
+	    long offset = min;
+	    long[] packed = new long[array.length];
+	    Arrays.parallelSetAll(packed, i -> (keys[i] - offset) << indexBits | i);
+	    Arrays.parallelSort(packed);
+	    permute(array, packed, (1L << indexBits) - 1);
+	    return;
+	}
+	LongKeyed[] pairs = new LongKeyed[array.length];
+	Arrays.parallelSetAll(pairs, i -> new LongKeyed(keys[i], i));
+	Arrays.parallelSort(pairs, (a, b) -> Long.compare(a.key, b.key));
+	T[] original = array.clone();
+	for (int i = 0; i < array.length; i++) {
+	    array[i] = original[pairs[i].index];
+	}
+    }
+
+    private static boolean isPrimitive(Object[] column) {
+	Class<?> type = column[0].getClass();
+	if (type != Boolean.class && type != Character.class && type != Byte.class && type != Short.class && type != Integer.class && type != Long.class) {
+	    return false;
+	}
+	for (Object value : column) {
+	    if (value.getClass() != type) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    private static long primitive(Object value) {
+	if (value instanceof Boolean) {
+	    return (Boolean) value ? 1 : 0;
+	}
+	if (value instanceof Character) {
+	    return (Character) value;
+	}
+	return ((Number) value).longValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object a, Object b) {
+	return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    private static <T> void permute(T[] array, long[] packed, long indexMask) {
+	T[] original = array.clone();
+	for (int i = 0; i < array.length; i++) {
+	    array[i] = original[(int) (packed[i] & indexMask)];
+	}
+    }
+}
@@ -0,0 +1,268 @@
+package com.horstmann.java8;
+
+import java.lang.management.ManagementFactory;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters for one point of a stream pipeline: how many elements pass it, how traversals through it end, and, when sampling is on, how long the rest of the
+ * pipeline takes per element.
+ *
+ * <p>
+ * Counters are striped, and each traversal counts locally and adds its count to them every {@value ProbeSpliterator#FLUSH_INTERVAL} elements and when it
+ * ends, so a probe costs little more than an increment per element while sampling is off. A traversal that a short-circuiting operation abandons is
+ * never seen to end, so up to {@value ProbeSpliterator#FLUSH_INTERVAL} - 1 of its elements are not counted. Probes obtained from {@link #named(String)}
+ * are handed to a sink once, which by default registers them with the platform MBean server as
+ * {@code com.horstmann.java8:type=StreamProbe,name=<name>}.
+ * </p>
+ *
+ * <p>
+ * A named probe stays published until it is closed, so names must come from a bounded set, such as one per pipeline stage, and never from data such as
+ * request or user ids. {@link #close()} unregisters the probe, and a later call of {@link #named(String)} with its name creates a new one.
+ * </p>
+ */
+public class StreamProbe implements StreamProbeMBean, AutoCloseable {
+
+    private static final ConcurrentMap<String, StreamProbe> PROBES = new ConcurrentHashMap<>();
+    private static volatile Sink sink = new Sink(StreamProbe::registerMBean, StreamProbe::unregisterMBean);
+
+    /**
+     * Publishes new named probes and unpublishes closed ones.
+     */
+    private static class Sink {
+	final Consumer<? super StreamProbe> publish;
+	final Consumer<? super StreamProbe> unpublish;
+
+	Sink(Consumer<? super StreamProbe> publish, Consumer<? super StreamProbe> unpublish) {
+	    this.publish = Objects.requireNonNull(publish);
+	    this.unpublish = Objects.requireNonNull(unpublish);
+	}
+    }
+
+    /**
+     * Largest sample interval, the largest power of two an int holds.
+     */
+    static final int MAX_SAMPLE_INTERVAL = 1 << 30;
+
+    private final String name;
+    private volatile int sampleMask = -1;
+
+    /**
+     * Sink that published this probe, or null if it was not obtained from {@link #named(String)}.
+     */
+    private volatile Sink publishedTo;
+
+    /**
+     * Whether the default sink registered this probe as an MBean, so that closing it leaves an MBean of another class loader alone.
+     */
+    private volatile boolean registered;
+
+    final LongAdder elements = new LongAdder();
+    final LongAdder traversals = new LongAdder();
+    final LongAdder exhaustedTraversals = new LongAdder();
+    final LongAdder splits = new LongAdder();
+    final LongAdder samples = new LongAdder();
+    final LongAdder sampledNanos = new LongAdder();
+    final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Creates a probe that is not published anywhere.
+     *
+     * @param name
+     *            - name of the probe
+     */
+    public StreamProbe(String name) {
+	this.name = Objects.requireNonNull(name);
+    }
+
+    /**
+     * Returns the probe called name, creating and publishing it on first use.
+     *
+     * @param name
+     *            - name of the probe
+     * @return shared probe of that name
+     */
+    public static StreamProbe named(String name) {
+	return PROBES.computeIfAbsent(name, key -> {
+	    StreamProbe probe = new StreamProbe(key);
+	    Sink current = sink;
+	    current.publish.accept(probe);
+	    probe.publishedTo = current;
+	    return probe;
+	});
+    }
+
+    /**
+     * Replaces the sink that probes created by {@link #named(String)} are published to, for example to export them to a metrics library instead of JMX.
+     *
+     * @param sink
+     *            - receives each new named probe once
+     */
+    public static void setSink(Consumer<? super StreamProbe> sink) {
+	setSink(sink, probe -> {
+	});
+    }
+
+    /**
+     * Replaces the sink that probes created by {@link #named(String)} are published to, together with the action that unpublishes them when they are
+     * closed. Probes published before keep the action of the sink they were published to.
+     *
+     * @param sink
+     *            - receives each new named probe once
+     * @param unpublish
+     *            - receives each closed named probe once
+     */
+    public static void setSink(Consumer<? super StreamProbe> sink, Consumer<? super StreamProbe> unpublish) {
+	StreamProbe.sink = new Sink(sink, unpublish);
+    }
+
+    private static void registerMBean(StreamProbe probe) {
+	try {
+	    ManagementFactory.getPlatformMBeanServer().registerMBean(probe, objectName(probe.getName()));
+	    probe.registered = true;
+	} catch (InstanceAlreadyExistsException e) {
+	    // registered by another class loader; keep counting locally
+	} catch (JMException e) {
+	    throw new IllegalStateException("Cannot register stream probe " + probe.getName(), e);
+	}
+    }
+
+    private static void unregisterMBean(StreamProbe probe) {
+	if (!probe.registered) {
+	    return;
+	}
+	try {
+	    ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(probe.getName()));
+	} catch (InstanceNotFoundException e) {
+	    // unregistered through the MBean server already
+	} catch (JMException e) {
+	    throw new IllegalStateException("Cannot unregister stream probe " + probe.getName(), e);
+	}
+    }
+
+    /**
+     * Returns the JMX name under which the default sink registers the probe called name.
+     *
+     * @param name
+     *            - name of the probe
+     * @return object name of the probe
+     * @throws JMException
+     *             if the name cannot be turned into an object name
+     */
+    public static ObjectName objectName(String name) throws JMException {
+	return new ObjectName("com.horstmann.java8:type=StreamProbe,name=" + ObjectName.quote(name));
+    }
+
+    /**
+     * Returns a stream with the elements of stream that reports them to this probe. Closing the returned stream closes stream.
+     *
+     * @param stream
+     *            - stream to observe
+     * @return instrumented stream
+     */
+    public <T> Stream<T> instrument(Stream<T> stream) {
+	return StreamSupport.stream(new ProbeSpliterator<>(stream.spliterator(), this), stream.isParallel()).onClose(stream::close);
+    }
+
+    /**
+     * Removes this probe from the named probes and unpublishes it from the sink it was published to. Streams instrumented with it keep counting into it.
+     * Closing a probe that is not, or no longer, the named probe of its name does nothing.
+     */
+    @Override
+    public void close() {
+	Sink published = publishedTo;
+	if (published != null && PROBES.remove(name, this)) {
+	    published.unpublish.accept(this);
+	}
+    }
+
+    int sampleMask() {
+	return sampleMask;
+    }
+
+    @Override
+    public String getName() {
+	return name;
+    }
+
+    @Override
+    public long getElements() {
+	return elements.sum();
+    }
+
+    @Override
+    public long getTraversals() {
+	return traversals.sum();
+    }
+
+    @Override
+    public long getExhaustedTraversals() {
+	return exhaustedTraversals.sum();
+    }
+
+    @Override
+    public long getShortCircuitedTraversals() {
+	return traversals.sum() - exhaustedTraversals.sum();
+    }
+
+    @Override
+    public long getSplits() {
+	return splits.sum();
+    }
+
+    @Override
+    public long getSamples() {
+	return samples.sum();
+    }
+
+    @Override
+    public double getMeanDownstreamNanos() {
+	long count = samples.sum();
+	return count == 0 ? 0 : (double) sampledNanos.sum() / count;
+    }
+
+    @Override
+    public long getMaxDownstreamNanos() {
+	return maxNanos.get();
+    }
+
+    @Override
+    public int getSampleInterval() {
+	return sampleMask + 1;
+    }
+
+    @Override
+    public void setSampleInterval(int sampleInterval) {
+	if (sampleInterval < 0 || sampleInterval > MAX_SAMPLE_INTERVAL) {
+	    throw new IllegalArgumentException("Sample interval must be between 0 and " + MAX_SAMPLE_INTERVAL + ": " + sampleInterval);
+	}
+	sampleMask = sampleInterval == 0 ? -1 : Integer.highestOneBit(Math.max(2 * sampleInterval - 1, 1)) - 1;
+    }
+
+    @Override
+    public void reset() {
+	elements.reset();
+	traversals.reset();
+	exhaustedTraversals.reset();
+	splits.reset();
+	samples.reset();
+	sampledNanos.reset();
+	maxNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+	return name + "[elements=" + getElements() + ", traversals=" + getTraversals() + ", shortCircuited=" + getShortCircuitedTraversals() + "]";
+    }
+}
@@ -0,0 +1,61 @@
+package com.horstmann.java8;
+
+/**
+ * Management interface of {@link StreamProbe}.
+ */
+public interface StreamProbeMBean {
+
+    public String getName();
+
+    /**
+     * Returns the number of elements that passed the probe. Counts are published in batches, so a short-circuited traversal may be undercounted by less
+     * than a batch.
+     */
+    public long getElements();
+
+    /**
+     * Returns the number of traversals started, counting each parallel split as a traversal of its own.
+     */
+    public long getTraversals();
+
+    /**
+     * Returns the number of traversals that ran until the stream had no more elements.
+     */
+    public long getExhaustedTraversals();
+
+    /**
+     * Returns the number of traversals that stopped before the end of the stream, because of a short-circuiting operation downstream or a failure, or
+     * because they are still running.
+     */
+    public long getShortCircuitedTraversals();
+
+    public long getSplits();
+
+    /**
+     * Returns the number of elements whose downstream latency was measured.
+     */
+    public long getSamples();
+
+    /**
+     * Returns the mean time, in nanoseconds, spent downstream of the probe per sampled element.
+     */
+    public double getMeanDownstreamNanos();
+
+    public long getMaxDownstreamNanos();
+
+    /**
+     * Returns the number of elements per latency sample, or 0 if sampling is off.
+     */
+    public int getSampleInterval();
+
+    /**
+     * Sets the number of elements per latency sample, rounded up to a power of two, or turns sampling off with 0. Takes effect for traversals started
+     * afterwards.
+     *
+     * @throws IllegalArgumentException
+     *             if sampleInterval is negative or above 2<sup>30</sup>
+     */
+    public void setSampleInterval(int sampleInterval);
+
+    public void reset();
+}
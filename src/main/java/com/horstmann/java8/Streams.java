@@ -1,48 +1,680 @@
 package com.horstmann.java8;
 
-import java.util.LinkedList;
-import java.util.Queue;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.Supplier;
-import java.util.stream.Collectors;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.BaseStream;
+import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Streams {
+
+    /**
+     * Most elements that {@link #probeSize(Stream, long, long)} makes room for before buffering.
+     */
+    public static final int PROBE_PRESIZE = 1 << 16;
+
+    /**
+     * Returns an infinite stream of the linear congruential sequence x_0 = seed, x_n+1 = (a*x_n+c) % m. Boxed form of
+     * {@link #linearCongruential(long, long, long, long)}.
+     *
+     * @param seed
+     *            - first element of the sequence
+     * @param a
+     *            - multiplier
+     * @param c
+     *            - increment
+     * @param m
+     *            - modulus, must be positive
+     * @return infinite stream of pseudo-random numbers in [0, m)
+     */
     public static Stream<Long> randomLongs(long seed, long a, long c, long m) {
-	return Stream.iterate(seed, x_n -> (a * x_n + c) % m);
+	return linearCongruential(seed, a, c, m).boxed();
+    }
+
+    /**
+     * Returns an infinite stream of the linear congruential sequence x_0 = seed, x_n+1 = (a*x_n+c) % m, computed without overflow for any positive m.
+     *
+     * @param seed
+     *            - first element of the sequence, reduced modulo m
+     * @param a
+     *            - multiplier
+     * @param c
+     *            - increment
+     * @param m
+     *            - modulus, must be positive
+     * @return infinite stream of pseudo-random numbers in [0, m)
+     */
+    public static LongStream linearCongruential(long seed, long a, long c, long m) {
+	return linearCongruential(Long.MAX_VALUE, seed, a, c, m);
+    }
+
+    /**
+     * Returns a stream of the first streamSize elements of the linear congruential sequence x_0 = seed, x_n+1 = (a*x_n+c) % m. The stream splits by jumping
+     * ahead in O(log n) steps, so a parallel pipeline generates contiguous ranges on each core and sees exactly the sequential sequence.
+     *
+     * @param streamSize
+     *            - number of elements to generate; Long.MAX_VALUE generates an unsized stream without end
+     * @param seed
+     *            - first element of the sequence, reduced modulo m
+     * @param a
+     *            - multiplier
+     * @param c
+     *            - increment
+     * @param m
+     *            - modulus, must be positive; powers of two take a faster path
+     * @return stream of streamSize pseudo-random numbers in [0, m)
+     */
+    public static LongStream linearCongruential(long streamSize, long seed, long a, long c, long m) {
+	return StreamSupport.longStream(new LinearCongruentialSpliterator(streamSize, seed, a, c, m), false);
+    }
+
+    /**
+     * Returns the characters of s as boxed values. Prefer {@link #chars(CharSequence)} where an IntStream will do.
+     *
+     * @param s
+     *            - characters to stream
+     * @return stream of the chars of s
+     */
+    public static Stream<Character> characterStream(CharSequence s) {
+	return chars(s).mapToObj(c -> (char) c);
+    }
+
+    /**
+     * Returns the chars of s as an IntStream that reads s in place. Works over any CharSequence, including a CharBuffer decoded from or wrapping a mapped
+     * file, and splits for parallel use without copying.
+     *
+     * @param s
+     *            - characters to stream; must not change while the stream is in use
+     * @return SIZED stream of the chars of s
+     */
+    public static IntStream chars(CharSequence s) {
+	return StreamSupport.intStream(new CharSequenceSpliterator(s, false), false);
+    }
+
+    /**
+     * Returns the code points of s as an IntStream that reads s in place. Surrogate pairs are combined and never split between parallel tasks; unpaired
+     * surrogates are passed through as they are.
+     *
+     * @param s
+     *            - characters to stream; must not change while the stream is in use
+     * @return stream of the code points of s
+     */
+    public static IntStream codePoints(CharSequence s) {
+	return StreamSupport.intStream(new CharSequenceSpliterator(s, true), false);
+    }
+
+    /**
+     * Returns the words of a UTF-8 text file, where a word is a maximal run of letters. The file is memory-mapped and tokenized from its bytes, so neither
+     * its contents nor an array of its words is held on the heap, and the stream splits at word boundaries for parallel use.
+     *
+     * @param path
+     *            - UTF-8 text file
+     * @return stream of the non-empty words of the file, in order
+     * @throws IOException
+     *             if the file cannot be opened or mapped
+     */
+    public static Stream<String> words(Path path) throws IOException {
+	return StreamSupport.stream(MappedWordSpliterator.map(path), false);
+    }
+
+    /**
+     * Collects stream into an array in encounter order. When the stream is SIZED and SUBSIZED, as streams over arrays, lists and ranges followed by map
+     * operations are, a parallel stream writes each element straight to its index in a single preallocated array, with no shared counter and no merging of
+     * partial results. Other streams fall back to {@link Stream#toArray(IntFunction)}.
+     *
+     * @param stream
+     *            - stream to collect
+     * @param generator
+     *            - allocates the result array of the requested size
+     * @return array with the elements of stream in encounter order
+     */
+    public static <T> T[] toArray(Stream<T> stream, IntFunction<T[]> generator) {
+	Spliterator<T> spliterator = stream.spliterator();
+	if (!IndexedFill.isIndexable(spliterator)) {
+	    return StreamSupport.stream(spliterator, stream.isParallel()).toArray(generator);
+	}
+	T[] array = generator.apply((int) spliterator.getExactSizeIfKnown());
+	new IndexedFill.OfRef<>(spliterator, IndexedFill.threshold(spliterator, stream.isParallel()), 0, array).invoke();
+	return array;
+    }
+
+    /**
+     * Collects stream into a fixed-size list in encounter order, filling its backing array as {@link #toArray(Stream, IntFunction)} does.
+     *
+     * @param stream
+     *            - stream to collect
+     * @return fixed-size list with the elements of stream in encounter order
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> toList(Stream<T> stream) {
+	return Arrays.asList(toArray(stream, n -> (T[]) new Object[n]));
+    }
+
+    /**
+     * Collects stream into an array in encounter order, writing each element at its index when the stream is SIZED and SUBSIZED.
+     *
+     * @param stream
+     *            - stream to collect
+     * @return array with the elements of stream in encounter order
+     */
+    public static int[] toArray(IntStream stream) {
+	Spliterator.OfInt spliterator = stream.spliterator();
+	if (!IndexedFill.isIndexable(spliterator)) {
+	    return StreamSupport.intStream(spliterator, stream.isParallel()).toArray();
+	}
+	int[] array = new int[(int) spliterator.getExactSizeIfKnown()];
+	new IndexedFill.OfInt(spliterator, IndexedFill.threshold(spliterator, stream.isParallel()), 0, array).invoke();
+	return array;
+    }
+
+    /**
+     * Collects stream into an array in encounter order, writing each element at its index when the stream is SIZED and SUBSIZED.
+     *
+     * @param stream
+     *            - stream to collect
+     * @return array with the elements of stream in encounter order
+     */
+    public static long[] toArray(LongStream stream) {
+	Spliterator.OfLong spliterator = stream.spliterator();
+	if (!IndexedFill.isIndexable(spliterator)) {
+	    return StreamSupport.longStream(spliterator, stream.isParallel()).toArray();
+	}
+	long[] array = new long[(int) spliterator.getExactSizeIfKnown()];
+	new IndexedFill.OfLong(spliterator, IndexedFill.threshold(spliterator, stream.isParallel()), 0, array).invoke();
+	return array;
     }
 
-    public static Stream<Character> characterStream(String s) {
-	return IntStream.range(0, s.length()).mapToObj(s::charAt);
+    /**
+     * Collects stream into an array in encounter order, writing each element at its index when the stream is SIZED and SUBSIZED.
+     *
+     * @param stream
+     *            - stream to collect
+     * @return array with the elements of stream in encounter order
+     */
+    public static double[] toArray(DoubleStream stream) {
+	Spliterator.OfDouble spliterator = stream.spliterator();
+	if (!IndexedFill.isIndexable(spliterator)) {
+	    return StreamSupport.doubleStream(spliterator, stream.isParallel()).toArray();
+	}
+	double[] array = new double[(int) spliterator.getExactSizeIfKnown()];
+	new IndexedFill.OfDouble(spliterator, IndexedFill.threshold(spliterator, stream.isParallel()), 0, array).invoke();
+	return array;
     }
 
+    /**
+     * Tells whether stream ends within a budget of one element per eight bytes of {@link Runtime#totalMemory()}, which no stream whose elements were
+     * collected could exceed anyway. A stream whose size is known is answered without being traversed, unless the size is Long.MAX_VALUE, which sources
+     * without end report. No test can tell an infinite stream from a long one, so a longer finite stream is reported as infinite. The stream cannot be used
+     * afterwards; use {@link #probeSize(Stream, long, long)} to keep its elements.
+     *
+     * <p>
+     * A stream of unknown size is traversed on the calling thread until it ends or the budget is spent. With a heap of some gigabytes the budget is
+     * hundreds of millions of elements, so an infinite stream keeps a core busy for seconds or more before false is returned. Bound the time with
+     * {@link #isFinite(Stream, long)} when that matters.
+     * </p>
+     *
+     * @param stream
+     *            - stream to test
+     * @return true if the end of stream was found within the budget
+     */
     public static <T> boolean isFinite(Stream<T> stream) {
-	AtomicLong count = new AtomicLong(Runtime.getRuntime().totalMemory() / 8);
-	try {
-	    stream.parallel().unordered().forEach(x -> {
-		if (count.decrementAndGet() <= 0) {
-		    throw new IllegalStateException("Infinite stream");
-		}
-	    });
-	} catch (IllegalStateException e) {
-	    return false;
+	return isFinite(stream, Long.MAX_VALUE);
+    }
+
+    /**
+     * Tells whether stream ends within the element budget of {@link #isFinite(Stream)} and within maxNanos, for streams whose elements may be slow to
+     * produce.
+     *
+     * @param stream
+     *            - stream to test
+     * @param maxNanos
+     *            - most time to spend traversing, in nanoseconds, checked every 64 elements; Long.MAX_VALUE for no limit
+     * @return true if the end of stream was found within the budget
+     */
+    public static <T> boolean isFinite(Stream<T> stream, long maxNanos) {
+	Spliterator<T> spliterator = stream.spliterator();
+	long exact = spliterator.getExactSizeIfKnown();
+	if (exact >= 0 && exact < Long.MAX_VALUE) {
+	    return true;
+	}
+	long maxElements = Runtime.getRuntime().totalMemory() / 8;
+	long start = System.nanoTime();
+	for (long count = 0; count < maxElements; count++) {
+	    if ((count & 63) == 0 && maxNanos != Long.MAX_VALUE && System.nanoTime() - start >= maxNanos) {
+		return false;
+	    }
+	    if (!spliterator.tryAdvance(x -> {
+	    })) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Finds out how many elements stream has without losing any of them. The spliterator of stream is asked first; if it is not SIZED, or reports
+     * Long.MAX_VALUE, elements are buffered until the end is reached or the budget is spent. The returned probe holds a stream that replays the buffered
+     * elements and then continues with the rest, so probing does not change what downstream operations see.
+     *
+     * <p>
+     * The estimated size of the spliterator presizes the buffer, capped at maxElements and at {@value #PROBE_PRESIZE} elements, since an estimate is only
+     * an upper bound that filters upstream leave unchanged. With a budget of no elements, the size is UNKNOWN and nothing is buffered.
+     * </p>
+     *
+     * @param stream
+     *            - stream to probe; must not be used afterwards
+     * @param maxElements
+     *            - most elements to buffer
+     * @param maxNanos
+     *            - most time to spend buffering, in nanoseconds, checked every 64 elements
+     * @return size of stream as far as known, and a stream with all its elements
+     */
+    public static <T> SizeProbe<T> probeSize(Stream<T> stream, long maxElements, long maxNanos) {
+	Spliterator<T> spliterator = stream.spliterator();
+	long exact = spliterator.getExactSizeIfKnown();
+	if (exact >= 0 && exact < Long.MAX_VALUE) {
+	    return new SizeProbe<>(SizeProbe.Kind.EXACT, exact, StreamSupport.stream(spliterator, stream.isParallel()).onClose(stream::close));
+	}
+	if (maxElements <= 0) {
+	    return new SizeProbe<>(SizeProbe.Kind.UNKNOWN, 0, StreamSupport.stream(spliterator, stream.isParallel()).onClose(stream::close));
 	}
-	return true;
+	List<T> buffer = new ArrayList<>((int) Math.min(Math.min(spliterator.estimateSize(), maxElements), PROBE_PRESIZE));
+	long deadline = System.nanoTime() + maxNanos;
+	while (buffer.size() < maxElements && ((buffer.size() & 63) != 0 || System.nanoTime() - deadline < 0)) {
+	    if (!spliterator.tryAdvance(buffer::add)) {
+		return new SizeProbe<>(SizeProbe.Kind.EXACT, buffer.size(), (stream.isParallel() ? buffer.parallelStream() : buffer.stream()).onClose(stream::close));
+	    }
+	}
+	Stream<T> replay = Stream.concat(buffer.stream(), StreamSupport.stream(spliterator, stream.isParallel())).onClose(stream::close);
+	return new SizeProbe<>(buffer.isEmpty() ? SizeProbe.Kind.UNKNOWN : SizeProbe.Kind.AT_LEAST, buffer.size(), replay);
     }
 
+    /**
+     * Alternates elements from the streams first and second, stopping when one of them runs out of elements. Both streams are consumed lazily, so either may
+     * be infinite.
+     *
+     * @param first
+     *            - stream whose elements come first in each pair
+     * @param second
+     *            - stream whose elements come second in each pair
+     * @return stream of alternating elements, SIZED and splittable when both sources are
+     */
     public static <T> Stream<T> zip(Stream<T> first, Stream<T> second) {
-	Queue<T> elementsA = first.collect(Collectors.toCollection(LinkedList::new));
-	Queue<T> elementsB = second.limit(elementsA.size()).collect(Collectors.toCollection(LinkedList::new));
-	return Stream.generate(new Supplier<T>() {
-	    boolean first = true;
-
-	    @Override
-	    public T get() {
-		Queue<T> queue = first ? elementsA : elementsB;
-		first = !first;
-		return queue.poll();
-	    }
-	}).limit(Math.min(elementsA.size(), elementsB.size()) * 2);
+	return StreamSupport.stream(ZipSpliterator.alternating(first.spliterator(), second.spliterator()), first.isParallel() || second.isParallel())
+		.onClose(closeAll(first, second));
+    }
+
+    /**
+     * Combines elements of the streams first and second pairwise, stopping when one of them runs out of elements. No intermediate pair object is allocated.
+     *
+     * @param first
+     *            - stream supplying the first argument of combiner
+     * @param second
+     *            - stream supplying the second argument of combiner
+     * @param combiner
+     *            - function applied to each pair of elements
+     * @return stream of combined elements, SIZED and splittable when both sources are
+     */
+    public static <A, B, R> Stream<R> zipWith(Stream<A> first, Stream<B> second, BiFunction<? super A, ? super B, ? extends R> combiner) {
+	return StreamSupport.stream(ZipSpliterator.<A, B, R> combining(first.spliterator(), second.spliterator(), combiner), first.isParallel() || second.isParallel())
+		.onClose(closeAll(first, second));
+    }
+
+    /**
+     * Reports the elements passing this point of a pipeline to the probe called name, which is published over JMX on first use and stays published until
+     * it is closed. See {@link StreamProbe}.
+     *
+     * @param stream
+     *            - stream to observe
+     * @param name
+     *            - name of the probe, from a bounded set of names
+     * @return stream with the same elements, closing stream when closed
+     */
+    public static <T> Stream<T> instrument(Stream<T> stream, String name) {
+	return StreamProbe.named(name).instrument(stream);
+    }
+
+    /**
+     * Records stream so that it can be replayed any number of times, spilling elements beyond {@value ReplayableStream#DEFAULT_SEGMENTS_IN_MEMORY}
+     * segments of {@value ReplayableStream#DEFAULT_SEGMENT_SIZE} to a temporary file with Java serialization.
+     *
+     * @param stream
+     *            - stream to record; traversed at most once
+     * @return cache to call {@link ReplayableStream#replay()} on, and to close when done
+     */
+    public static <T> ReplayableStream<T> cache(Stream<T> stream) {
+	return cache(stream, ReplayableStream.Serializer.serializable());
+    }
+
+    /**
+     * Records stream so that it can be replayed any number of times, spilling elements with serializer.
+     *
+     * @param stream
+     *            - stream to record; traversed at most once
+     * @param serializer
+     *            - writes elements that do not fit in memory to a temporary file
+     * @return cache to call {@link ReplayableStream#replay()} on, and to close when done
+     */
+    public static <T> ReplayableStream<T> cache(Stream<T> stream, ReplayableStream.Serializer<T> serializer) {
+	return new ReplayableStream<>(stream, ReplayableStream.DEFAULT_SEGMENT_SIZE, ReplayableStream.DEFAULT_SEGMENTS_IN_MEMORY, serializer);
+    }
+
+    /**
+     * Merges streams that are each sorted by comparator into one sorted stream, lazily, pulling one element at a time from the source whose head is least.
+     * Equal elements are taken from earlier streams first. The merge continues until every stream is exhausted.
+     *
+     * @param comparator
+     *            - order of every stream and of the result
+     * @param streams
+     *            - sorted streams to merge
+     * @return sequential sorted stream of the elements of all streams
+     */
+    @SafeVarargs
+    public static <T> Stream<T> mergeSorted(Comparator<? super T> comparator, Stream<? extends T>... streams) {
+	return merge(comparator, ExhaustionPolicy.DRAIN, streams);
+    }
+
+    /**
+     * Merges streams that are each sorted by comparator into one sorted stream, as {@link #mergeSorted(Comparator, Stream...)} does.
+     *
+     * @param comparator
+     *            - order of every stream and of the result
+     * @param policy
+     *            - whether to stop when the first stream is exhausted or drain all of them
+     * @param streams
+     *            - sorted streams to merge
+     * @return sequential sorted stream of the elements of streams
+     */
+    @SafeVarargs
+    public static <T> Stream<T> mergeSorted(Comparator<? super T> comparator, ExhaustionPolicy policy, Stream<? extends T>... streams) {
+	return merge(comparator, policy, streams);
+    }
+
+    /**
+     * Implements mergeSorted for streams whose elements are all T. The streams are taken as Stream&lt;?&gt;, so that the public overloads hand on their
+     * varargs arrays with a reifiable type.
+     */
+    private static <T> Stream<T> merge(Comparator<? super T> comparator, ExhaustionPolicy policy, Stream<?>... streams) {
+	return StreamSupport.stream(new MergeSpliterator<T>(Streams.<T> spliterators(streams), comparator, policy), false).onClose(closeAll(streams));
+    }
+
+    /**
+     * Takes one element from each stream in turn, lazily, until every stream is exhausted.
+     *
+     * @param streams
+     *            - streams to interleave
+     * @return sequential stream of the elements of all streams in round-robin order
+     */
+    @SafeVarargs
+    public static <T> Stream<T> interleave(Stream<? extends T>... streams) {
+	return roundRobin(ExhaustionPolicy.DRAIN, streams);
+    }
+
+    /**
+     * Takes one element from each stream in turn, lazily.
+     *
+     * @param policy
+     *            - whether to stop when the first stream is exhausted or drain all of them
+     * @param streams
+     *            - streams to interleave
+     * @return sequential stream of the elements of streams in round-robin order
+     */
+    @SafeVarargs
+    public static <T> Stream<T> interleave(ExhaustionPolicy policy, Stream<? extends T>... streams) {
+	return roundRobin(policy, streams);
+    }
+
+    /**
+     * Implements interleave for streams whose elements are all T, taken as Stream&lt;?&gt; as in {@link #merge}.
+     */
+    private static <T> Stream<T> roundRobin(ExhaustionPolicy policy, Stream<?>... streams) {
+	return StreamSupport.stream(new InterleaveSpliterator<T>(Streams.<T> spliterators(streams), policy), false).onClose(closeAll(streams));
+    }
+
+    /**
+     * Groups the elements of stream into lists of n consecutive elements; only the last list may be shorter. In a parallel stream, every list holds the same
+     * elements as in a sequential one, and the lists keep encounter order.
+     *
+     * <p>
+     * Each chunk is a new list, since chunks are elements of the resulting stream and may be kept by its downstream operations. To fill one buffer again
+     * for every chunk, consume the stream with {@link #forEachChunk(Stream, int, Consumer)}.
+     * </p>
+     *
+     * @param stream
+     *            - stream to group
+     * @param n
+     *            - elements per chunk
+     * @return stream of fixed-size lists
+     */
+    public static <T> Stream<List<T>> chunked(Stream<T> stream, int n) {
+	return StreamSupport.stream(new ChunkSpliterator.OfRef<>(stream.spliterator(), checkChunkSize(n), null, 0), stream.isParallel()).onClose(stream::close);
+    }
+
+    /**
+     * Groups the elements of stream into new arrays of n consecutive elements, as {@link #chunked(Stream, int)} does;
+     * {@link #forEachChunk(IntStream, int, ObjIntConsumer)} reuses one array instead.
+     *
+     * @param stream
+     *            - stream to group
+     * @param n
+     *            - elements per chunk
+     * @return stream of arrays
+     */
+    public static Stream<int[]> chunked(IntStream stream, int n) {
+	return StreamSupport.stream(new ChunkSpliterator.OfInt(stream.spliterator(), checkChunkSize(n), null, 0), stream.isParallel()).onClose(stream::close);
+    }
+
+    /**
+     * Groups the elements of stream into new arrays of n consecutive elements, as {@link #chunked(Stream, int)} does;
+     * {@link #forEachChunk(LongStream, int, ObjIntConsumer)} reuses one array instead.
+     *
+     * @param stream
+     *            - stream to group
+     * @param n
+     *            - elements per chunk
+     * @return stream of arrays
+     */
+    public static Stream<long[]> chunked(LongStream stream, int n) {
+	return StreamSupport.stream(new ChunkSpliterator.OfLong(stream.spliterator(), checkChunkSize(n), null, 0), stream.isParallel()).onClose(stream::close);
+    }
+
+    /**
+     * Passes the elements of stream to action in chunks of n, in encounter order and in the calling thread. The same list is passed for every chunk, so
+     * action must not keep it; only the last chunk may be shorter.
+     *
+     * @param stream
+     *            - stream to consume
+     * @param n
+     *            - elements per chunk
+     * @param action
+     *            - action on each chunk, such as adding it to a batch statement
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void forEachChunk(Stream<T> stream, int n, Consumer<? super List<T>> action) {
+	Object[] buffer = new Object[checkChunkSize(n)];
+	List<T> chunk = (List<T>) Arrays.asList(buffer);
+	int[] length = new int[1];
+	stream.sequential().forEachOrdered(element -> {
+	    buffer[length[0]++] = element;
+	    if (length[0] == n) {
+		action.accept(chunk);
+		length[0] = 0;
+	    }
+	});
+	if (length[0] > 0) {
+	    Arrays.fill(buffer, length[0], n, null);
+	    action.accept(chunk.subList(0, length[0]));
+	}
+    }
+
+    /**
+     * Passes the elements of stream to action in chunks of n, in encounter order and in the calling thread. The same array is passed for every chunk,
+     * together with the number of elements it holds, which is n except for the last chunk.
+     *
+     * @param stream
+     *            - stream to consume
+     * @param n
+     *            - elements per chunk
+     * @param action
+     *            - action on each chunk and its length
+     */
+    public static void forEachChunk(IntStream stream, int n, ObjIntConsumer<int[]> action) {
+	int[] buffer = new int[checkChunkSize(n)];
+	int[] length = new int[1];
+	stream.sequential().forEachOrdered(element -> {
+	    buffer[length[0]++] = element;
+	    if (length[0] == n) {
+		action.accept(buffer, n);
+		length[0] = 0;
+	    }
+	});
+	if (length[0] > 0) {
+	    action.accept(buffer, length[0]);
+	}
+    }
+
+    /**
+     * Passes the elements of stream to action in chunks of n, as {@link #forEachChunk(IntStream, int, ObjIntConsumer)} does.
+     *
+     * @param stream
+     *            - stream to consume
+     * @param n
+     *            - elements per chunk
+     * @param action
+     *            - action on each chunk and its length
+     */
+    public static void forEachChunk(LongStream stream, int n, ObjIntConsumer<long[]> action) {
+	long[] buffer = new long[checkChunkSize(n)];
+	int[] length = new int[1];
+	stream.sequential().forEachOrdered(element -> {
+	    buffer[length[0]++] = element;
+	    if (length[0] == n) {
+		action.accept(buffer, n);
+		length[0] = 0;
+	    }
+	});
+	if (length[0] > 0) {
+	    action.accept(buffer, length[0]);
+	}
+    }
+
+    /**
+     * Returns sliding windows over stream: lists of size consecutive elements, the first starting at the first element and each following one step
+     * elements later. Elements after the last complete window are dropped. The result is sequential.
+     *
+     * @param stream
+     *            - stream to slide over
+     * @param size
+     *            - elements per window
+     * @param step
+     *            - distance between the starts of consecutive windows
+     * @return stream of windows
+     */
+    public static <T> Stream<List<T>> windowed(Stream<T> stream, int size, int step) {
+	if (step <= 0) {
+	    throw new IllegalArgumentException("Step must be positive: " + step);
+	}
+	return StreamSupport.stream(new WindowSpliterator<>(stream.spliterator(), checkChunkSize(size), step), false).onClose(stream::close);
+    }
+
+    private static int checkChunkSize(int n) {
+	if (n <= 0) {
+	    throw new IllegalArgumentException("Chunk size must be positive: " + n);
+	}
+	return n;
+    }
+
+    /**
+     * Lists the subdirectories of dir lazily, reading its entries with a {@link DirectoryStream} instead of building an array of all of them first.
+     * Symbolic links to directories are included, as by {@link java.io.File#isDirectory()}.
+     *
+     * @param dir
+     *            - directory to list
+     * @return stream of the subdirectories of dir; must be closed to release the directory
+     * @throws IOException
+     *             if dir cannot be opened
+     */
+    public static Stream<Path> subdirectories(Path dir) throws IOException {
+	DirectoryStream<Path> entries = Files.newDirectoryStream(dir, Files::isDirectory);
+	return StreamSupport.stream(entries.spliterator(), false).onClose(() -> {
+	    try {
+		entries.close();
+	    } catch (IOException e) {
+		throw new UncheckedIOException(e);
+	    }
+	});
+    }
+
+    /**
+     * Finds the files below root that match glob, reading sibling subtrees in parallel and returning matches as they are found, in no particular order. The
+     * attributes of each entry are read once. Directories are not reported, and links are not followed.
+     *
+     * @param root
+     *            - directory to search
+     * @param glob
+     *            - pattern such as "*.log", matched against file names, or against paths relative to root if it contains a separator, such as
+     *            "2016/&#42;&#42;.log"
+     * @param maxDepth
+     *            - levels of directories to read; 1 searches root only
+     * @return stream of matching files; closing it cancels the walk, and it must be closed to release the directories the walk still has open
+     * @throws UncheckedIOException
+     *             during traversal, after the walk has ended, if a directory could not be read
+     */
+    public static Stream<Path> filesMatching(Path root, String glob, int maxDepth) {
+	if (maxDepth <= 0) {
+	    throw new IllegalArgumentException("Depth must be positive: " + maxDepth);
+	}
+	DirectoryWalk walk = new DirectoryWalk(root, glob, maxDepth).start();
+	return StreamSupport.stream(walk, false).onClose(walk::close);
+    }
+
+    /**
+     * Returns the spliterators of streams, whose elements the caller knows to be T.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Spliterator<? extends T>[] spliterators(Stream<?>... streams) {
+	Spliterator<? extends T>[] spliterators = (Spliterator<? extends T>[]) new Spliterator<?>[streams.length];
+	for (int i = 0; i < streams.length; i++) {
+	    spliterators[i] = (Spliterator<? extends T>) streams[i].spliterator();
+	}
+	return spliterators;
+    }
+
+    /**
+     * Returns an action closing every stream. The first exception thrown is rethrown after all streams are closed, with the later ones suppressed.
+     */
+    private static Runnable closeAll(BaseStream<?, ?>... streams) {
+	return () -> {
+	    RuntimeException failure = null;
+	    for (BaseStream<?, ?> stream : streams) {
+		try {
+		    stream.close();
+		} catch (RuntimeException e) {
+		    if (failure == null) {
+			failure = e;
+		    } else {
+			failure.addSuppressed(e);
+		    }
+		}
+	    }
+	    if (failure != null) {
+		throw failure;
+	    }
+	};
     }
 }
@@ -0,0 +1,42 @@
+package com.horstmann.java8;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * {@link Supplier} that may throw. It has the shape of {@link Callable} but its own method name, like the other functional interfaces ending in Ex; a
+ * Callable c is adapted as c::call.
+ */
+public interface SupplierEx<T> {
+    public T get() throws Exception;
+
+    /**
+     * Turns f into a {@link Supplier} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - supplier to convert exceptions for
+     * @return Supplier that does not throw any checked exceptions
+     */
+    public static <T> Supplier<T> uncheck(SupplierEx<T> f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(SupplierEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - supplier to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return Supplier that does not declare any checked exceptions
+     */
+    public static <T> Supplier<T> uncheck(SupplierEx<T> f, UncheckMode mode) {
+	return () -> {
+	    try {
+		return f.get();
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
@@ -0,0 +1,237 @@
+package com.horstmann.java8;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs batches of tasks on a bounded pool instead of a thread per task, with a bound on the tasks in flight and a single point to wait for them and
+ * collect their failures.
+ *
+ * <p>
+ * Tasks run on a work-stealing {@link ForkJoinPool} with a fixed number of threads, or, on JDKs that have them, on a virtual thread each. At most maxQueued
+ * tasks are submitted and not yet finished; beyond that, submitting blocks the producer or is rejected, depending on the {@link Backpressure}. Exceptions
+ * thrown by tasks, checked or not, are collected, and {@link #await()} reports them together. Tasks must not submit to the runner that runs them while it
+ * blocks producers, since a full runner would then wait for itself.
+ * </p>
+ */
+public class TaskRunner implements Executor, AutoCloseable {
+
+    public enum Backpressure {
+	/**
+	 * Submitting waits until a task in flight has finished.
+	 */
+	BLOCK,
+	/**
+	 * Submitting throws {@link RejectedExecutionException}.
+	 */
+	REJECT
+    }
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxQueued;
+    private final Backpressure backpressure;
+    private final ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+    private long pending;
+
+    private TaskRunner(ExecutorService executor, int maxQueued, Backpressure backpressure) {
+	if (maxQueued <= 0) {
+	    throw new IllegalArgumentException("Queue bound must be positive: " + maxQueued);
+	}
+	this.executor = executor;
+	this.permits = new Semaphore(maxQueued);
+	this.maxQueued = maxQueued;
+	this.backpressure = Objects.requireNonNull(backpressure);
+    }
+
+    /**
+     * Creates a runner on a new work-stealing pool.
+     *
+     * @param parallelism
+     *            - number of threads of the pool
+     * @param maxQueued
+     *            - most tasks submitted and not finished
+     * @param backpressure
+     *            - what happens to producers beyond maxQueued
+     * @return new runner; close it to stop its threads
+     */
+    public static TaskRunner workStealing(int parallelism, int maxQueued, Backpressure backpressure) {
+	return new TaskRunner(new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true), maxQueued, backpressure);
+    }
+
+    /**
+     * Creates a runner that starts a virtual thread per task. The JDK method is looked up reflectively, so the project still compiles for Java 8.
+     *
+     * @param maxQueued
+     *            - most tasks submitted and not finished
+     * @param backpressure
+     *            - what happens to producers beyond maxQueued
+     * @return new runner
+     * @throws UnsupportedOperationException
+     *             if the running JDK has no virtual threads
+     */
+    public static TaskRunner virtualThreads(int maxQueued, Backpressure backpressure) {
+	try {
+	    ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+	    return new TaskRunner(executor, maxQueued, backpressure);
+	} catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+	    throw new UnsupportedOperationException("Virtual threads are not available on Java " + System.getProperty("java.version"), e);
+	}
+    }
+
+    /**
+     * Tells whether {@link #virtualThreads(int, Backpressure)} can be used on the running JDK.
+     */
+    public static boolean virtualThreadsAvailable() {
+	try {
+	    virtualThreads(1, Backpressure.REJECT).close();
+	    return true;
+	} catch (UnsupportedOperationException e) {
+	    return false;
+	}
+    }
+
+    /**
+     * Submits a task that may throw checked exceptions; they are collected for {@link #await()}.
+     *
+     * @param task
+     *            - task to run
+     * @throws RejectedExecutionException
+     *             if the runner is full and rejects, if the producer was interrupted while blocked, or if the runner is closed
+     */
+    public void submit(RunnableEx task) {
+	Objects.requireNonNull(task);
+	acquire();
+	synchronized (this) {
+	    pending++;
+	}
+	try {
+	    executor.execute(() -> {
+		try {
+		    task.run();
+		} catch (Throwable e) {
+		    failures.add(e);
+		} finally {
+		    permits.release();
+		    finished();
+		}
+	    });
+	} catch (RejectedExecutionException e) {
+	    permits.release();
+	    finished();
+	    throw e;
+	}
+    }
+
+    /**
+     * Submits each task in order, blocking or rejecting as the backpressure prescribes when the runner is full.
+     *
+     * @param tasks
+     *            - tasks to run
+     */
+    public void submitAll(Iterable<? extends RunnableEx> tasks) {
+	for (RunnableEx task : tasks) {
+	    submit(task);
+	}
+    }
+
+    /**
+     * Submits a task; its exceptions are collected for {@link #await()}.
+     *
+     * @param task
+     *            - task to run
+     */
+    @Override
+    public void execute(Runnable task) {
+	Objects.requireNonNull(task);
+	submit(task::run);
+    }
+
+    /**
+     * Submits each task in order, blocking or rejecting as the backpressure prescribes when the runner is full.
+     *
+     * @param tasks
+     *            - tasks to run
+     */
+    public void executeAll(Iterable<? extends Runnable> tasks) {
+	for (Runnable task : tasks) {
+	    execute(task);
+	}
+    }
+
+    private void acquire() {
+	if (backpressure == Backpressure.REJECT) {
+	    if (!permits.tryAcquire()) {
+		throw new RejectedExecutionException(maxQueued + " tasks in flight");
+	    }
+	    return;
+	}
+	try {
+	    permits.acquire();
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new RejectedExecutionException("Interrupted while waiting to submit", e);
+	}
+    }
+
+    private synchronized void finished() {
+	if (--pending == 0) {
+	    notifyAll();
+	}
+    }
+
+    /**
+     * Waits until every task submitted so far has finished, then reports their failures, which are cleared so that the runner can take the next batch.
+     *
+     * @throws ExecutionException
+     *             if any task failed: its cause is the first failure, and the other failures are suppressed exceptions of it
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    public void await() throws ExecutionException, InterruptedException {
+	synchronized (this) {
+	    while (pending > 0) {
+		wait();
+	    }
+	}
+	List<Throwable> failed = new ArrayList<>();
+	for (Throwable failure; (failure = failures.poll()) != null;) {
+	    failed.add(failure);
+	}
+	if (failed.isEmpty()) {
+	    return;
+	}
+	ExecutionException e = new ExecutionException(failed.size() + " task(s) failed", failed.get(0));
+	for (Throwable failure : failed.subList(1, failed.size())) {
+	    e.addSuppressed(failure);
+	}
+	throw e;
+    }
+
+    /**
+     * Stops accepting tasks and waits for the submitted ones to finish. Failures not reported by {@link #await()} are dropped.
+     */
+    @Override
+    public void close() {
+	executor.shutdown();
+	try {
+	    while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+		// keep waiting for long tasks
+	    }
+	} catch (InterruptedException e) {
+	    executor.shutdownNow();
+	    Thread.currentThread().interrupt();
+	}
+    }
+}
@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.ToDoubleBiFunction;
+
+public interface ToDoubleBiFunctionEx<T, U> {
+    public double applyAsDouble(T t, U u) throws Exception;
+
+    /**
+     * Turns f into a {@link ToDoubleBiFunction} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @return ToDoubleBiFunction that does not throw any checked exceptions
+     */
+    public static <T, U> ToDoubleBiFunction<T, U> uncheck(ToDoubleBiFunctionEx<T, U> f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(ToDoubleBiFunctionEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return ToDoubleBiFunction that does not declare any checked exceptions
+     */
+    public static <T, U> ToDoubleBiFunction<T, U> uncheck(ToDoubleBiFunctionEx<T, U> f, UncheckMode mode) {
+	return (t, u) -> {
+	    try {
+		return f.applyAsDouble(t, u);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
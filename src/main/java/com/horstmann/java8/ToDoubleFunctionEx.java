@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.ToDoubleFunction;
+
+public interface ToDoubleFunctionEx<T> {
+    public double applyAsDouble(T t) throws Exception;
+
+    /**
+     * Turns f into a {@link ToDoubleFunction} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @return ToDoubleFunction that does not throw any checked exceptions
+     */
+    public static <T> ToDoubleFunction<T> uncheck(ToDoubleFunctionEx<T> f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(ToDoubleFunctionEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return ToDoubleFunction that does not declare any checked exceptions
+     */
+    public static <T> ToDoubleFunction<T> uncheck(ToDoubleFunctionEx<T> f, UncheckMode mode) {
+	return t -> {
+	    try {
+		return f.applyAsDouble(t);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.ToIntBiFunction;
+
+public interface ToIntBiFunctionEx<T, U> {
+    public int applyAsInt(T t, U u) throws Exception;
+
+    /**
+     * Turns f into a {@link ToIntBiFunction} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @return ToIntBiFunction that does not throw any checked exceptions
+     */
+    public static <T, U> ToIntBiFunction<T, U> uncheck(ToIntBiFunctionEx<T, U> f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(ToIntBiFunctionEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return ToIntBiFunction that does not declare any checked exceptions
+     */
+    public static <T, U> ToIntBiFunction<T, U> uncheck(ToIntBiFunctionEx<T, U> f, UncheckMode mode) {
+	return (t, u) -> {
+	    try {
+		return f.applyAsInt(t, u);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
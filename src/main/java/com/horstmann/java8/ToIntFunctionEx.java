@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.ToIntFunction;
+
+public interface ToIntFunctionEx<T> {
+    public int applyAsInt(T t) throws Exception;
+
+    /**
+     * Turns f into a {@link ToIntFunction} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @return ToIntFunction that does not throw any checked exceptions
+     */
+    public static <T> ToIntFunction<T> uncheck(ToIntFunctionEx<T> f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(ToIntFunctionEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return ToIntFunction that does not declare any checked exceptions
+     */
+    public static <T> ToIntFunction<T> uncheck(ToIntFunctionEx<T> f, UncheckMode mode) {
+	return t -> {
+	    try {
+		return f.applyAsInt(t);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.ToLongBiFunction;
+
+public interface ToLongBiFunctionEx<T, U> {
+    public long applyAsLong(T t, U u) throws Exception;
+
+    /**
+     * Turns f into a {@link ToLongBiFunction} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @return ToLongBiFunction that does not throw any checked exceptions
+     */
+    public static <T, U> ToLongBiFunction<T, U> uncheck(ToLongBiFunctionEx<T, U> f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(ToLongBiFunctionEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return ToLongBiFunction that does not declare any checked exceptions
+     */
+    public static <T, U> ToLongBiFunction<T, U> uncheck(ToLongBiFunctionEx<T, U> f, UncheckMode mode) {
+	return (t, u) -> {
+	    try {
+		return f.applyAsLong(t, u);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
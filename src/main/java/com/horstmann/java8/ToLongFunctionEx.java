@@ -0,0 +1,37 @@
+package com.horstmann.java8;
+
+import java.util.function.ToLongFunction;
+
+public interface ToLongFunctionEx<T> {
+    public long applyAsLong(T t) throws Exception;
+
+    /**
+     * Turns f into a {@link ToLongFunction} that wraps any exception it throws in a RuntimeException.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @return ToLongFunction that does not throw any checked exceptions
+     */
+    public static <T> ToLongFunction<T> uncheck(ToLongFunctionEx<T> f) {
+	return uncheck(f, UncheckMode.WRAP);
+    }
+
+    /**
+     * Like {@link #uncheck(ToLongFunctionEx)}, but propagates any exception f throws as mode prescribes.
+     *
+     * @param f
+     *            - function to convert exceptions for
+     * @param mode
+     *            - how to propagate exceptions
+     * @return ToLongFunction that does not declare any checked exceptions
+     */
+    public static <T> ToLongFunction<T> uncheck(ToLongFunctionEx<T> f, UncheckMode mode) {
+	return t -> {
+	    try {
+		return f.applyAsLong(t);
+	    } catch (Exception e) {
+		throw mode.propagate(e);
+	    }
+	};
+    }
+}
@@ -0,0 +1,52 @@
+package com.horstmann.java8;
+
+/**
+ * How the uncheck adapters of {@link RunnableEx}, {@link FunctionEx} and the other functional interfaces ending in Ex propagate a checked exception.
+ */
+public enum UncheckMode {
+
+    /**
+     * Wraps every exception in a new RuntimeException, which captures a stack trace of its own. This is the default.
+     */
+    WRAP {
+	@Override
+	RuntimeException propagate(Exception e) {
+	    return new RuntimeException(e);
+	}
+    },
+
+    /**
+     * Rethrows unchecked exceptions as they are and wraps checked ones in an {@link UncheckedException}, which keeps the cause but does not capture a stack
+     * trace of its own.
+     */
+    LIGHTWEIGHT {
+	@Override
+	RuntimeException propagate(Exception e) {
+	    if (e instanceof RuntimeException) {
+		return (RuntimeException) e;
+	    }
+	    return new UncheckedException(e);
+	}
+    },
+
+    /**
+     * Rethrows the original exception without wrapping it, even though it is checked and the functional interface does not declare it. Callers that want to
+     * catch it must catch Exception.
+     */
+    SNEAKY {
+	@Override
+	RuntimeException propagate(Exception e) {
+	    throw UncheckMode.<RuntimeException> sneakyThrow(e);
+	}
+    };
+
+    /**
+     * Returns the exception to throw in place of e, or throws e itself.
+     */
+    abstract RuntimeException propagate(Exception e);
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> E sneakyThrow(Throwable t) throws E {
+	throw (E) t;
+    }
+}
@@ -0,0 +1,13 @@
+package com.horstmann.java8;
+
+/**
+ * Unchecked wrapper of a checked exception that skips filling in its own stack trace; the stack trace of the cause tells where the failure happened.
+ */
+public class UncheckedException extends RuntimeException {
+
+    private static final long serialVersionUID = -6433812262520232469L;
+
+    public UncheckedException(Exception cause) {
+	super(String.valueOf(cause), cause, true, false);
+    }
+}
@@ -0,0 +1,66 @@
+package com.horstmann.java8;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Sequential spliterator of sliding windows of a source spliterator: the first window holds the first size elements, and each following one starts step
+ * elements later. Elements are kept in a ring of size slots; when the step is larger than the window, the elements between two windows are pulled from the
+ * source but not stored, and the next window is refilled from the start of the ring.
+ */
+class WindowSpliterator<T> extends Spliterators.AbstractSpliterator<List<T>> implements Consumer<T> {
+
+    private final Spliterator<T> source;
+    private final int step;
+    private final Object[] ring;
+    private int head;
+    private int filled;
+    private T pulled;
+
+    WindowSpliterator(Spliterator<T> source, int size, int step) {
+	super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+	this.source = source;
+	this.step = step;
+	this.ring = new Object[size];
+    }
+
+    @Override
+    public void accept(T t) {
+	pulled = t;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean tryAdvance(Consumer<? super List<T>> action) {
+	int size = ring.length;
+	if (filled == size && step > size) {
+	    for (int i = step - size; i > 0; i--) {
+		if (!source.tryAdvance(this)) {
+		    return false;
+		}
+	    }
+	    filled = 0;
+	    head = 0;
+	}
+	for (int i = filled < size ? size - filled : step; i > 0; i--) {
+	    if (!source.tryAdvance(this)) {
+		return false;
+	    }
+	    if (filled < size) {
+		ring[filled++] = pulled;
+	    } else {
+		ring[head] = pulled;
+		head = head + 1 == size ? 0 : head + 1;
+	    }
+	}
+	pulled = null;
+	Object[] window = new Object[size];
+	System.arraycopy(ring, head, window, 0, size - head);
+	System.arraycopy(ring, 0, window, size - head, head);
+	action.accept((List<T>) Arrays.asList(window));
+	return true;
+    }
+}
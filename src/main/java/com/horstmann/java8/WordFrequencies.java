@@ -0,0 +1,453 @@
+package com.horstmann.java8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Word counts kept out of the garbage-collected heap as far as possible: the bytes of each distinct word are stored once, in UTF-8, in an arena of direct
+ * memory, and the counts in an open-addressing table of primitive arrays with linear probing. A slot takes 20 bytes and the table is kept at most half
+ * full, so a word costs its bytes plus 40 to 80 bytes of table, and counting an occurrence allocates nothing.
+ *
+ * <p>
+ * A table is not thread-safe. {@link #of(Path)} counts a file in parallel with one table per thread taking part, however many ranges of the file each
+ * thread counts, and merges these tables into the largest of them at the end. Words are handed out as read-only views of the arena, so iterating and
+ * selecting the most frequent words create no Strings. The arena holds at most 2 GiB of distinct word bytes, and the table at most 2<sup>29</sup> distinct
+ * words.
+ * </p>
+ */
+public class WordFrequencies {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int MAX_WORDS = MAX_CAPACITY >> 1;
+    private static final int MIN_ARENA = 1 << 12;
+    private static final int MAX_ARENA = Integer.MAX_VALUE - 8;
+
+    /**
+     * Receives a word and its count. The buffer is a read-only view of the arena positioned at the word, valid only during the call.
+     */
+    @FunctionalInterface
+    public interface WordConsumer {
+	public void accept(ByteBuffer word, long count);
+    }
+
+    private ByteBuffer arena;
+
+    /**
+     * Hash of the word in each slot, never 0; 0 marks an empty slot.
+     */
+    private int[] hashes;
+    private int[] offsets;
+    private int[] lengths;
+    private long[] counts;
+    private int size;
+    private long total;
+
+    public WordFrequencies() {
+	this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedWords
+     *            - number of distinct words to make room for
+     * @throws IllegalArgumentException
+     *             if expectedWords is negative or above 2<sup>29</sup>, which would need a table larger than an array can be
+     */
+    public WordFrequencies(int expectedWords) {
+	if (expectedWords < 0 || expectedWords > MAX_WORDS) {
+	    throw new IllegalArgumentException("Expected words must be between 0 and " + MAX_WORDS + ": " + expectedWords);
+	}
+	int capacity = Math.max(Integer.highestOneBit(Math.max(expectedWords * 2 - 1, 1)) << 1, MIN_CAPACITY);
+	hashes = new int[capacity];
+	offsets = new int[capacity];
+	lengths = new int[capacity];
+	counts = new long[capacity];
+	arena = ByteBuffer.allocateDirect(MIN_ARENA);
+    }
+
+    /**
+     * Counts the words of a UTF-8 file, as {@link Streams#words(Path)} splits them, in parallel on the common fork/join pool.
+     *
+     * @param path
+     *            - UTF-8 text file
+     * @return counts of the words of the file
+     * @throws IOException
+     *             if the file cannot be mapped
+     */
+    public static WordFrequencies of(Path path) throws IOException {
+	MappedWordSpliterator words = MappedWordSpliterator.map(path);
+	long threshold = Math.max(words.estimateSize() / (ForkJoinPool.getCommonPoolParallelism() << 2), 1);
+	Map<Thread, WordFrequencies> tables = new ConcurrentHashMap<>();
+	new CountTask(words, threshold, tables).invoke();
+	WordFrequencies largest = new WordFrequencies();
+	for (WordFrequencies table : tables.values()) {
+	    if (table.size > largest.size) {
+		largest = table;
+	    }
+	}
+	for (WordFrequencies table : tables.values()) {
+	    if (table != largest) {
+		largest.merge(table);
+	    }
+	}
+	return largest;
+    }
+
+    /**
+     * Counts the words of a range of the file into the table of the thread that runs it, so each thread has one table however many ranges it counts.
+     */
+    private static class CountTask extends RecursiveAction {
+	private static final long serialVersionUID = -6010591893542719335L;
+
+	private final MappedWordSpliterator words;
+	private final long threshold;
+	private final Map<Thread, WordFrequencies> tables;
+
+	CountTask(MappedWordSpliterator words, long threshold, Map<Thread, WordFrequencies> tables) {
+	    this.words = words;
+	    this.threshold = threshold;
+	    this.tables = tables;
+	}
+
+	@Override
+	protected void compute() {
+	    MappedWordSpliterator prefix;
+	    if (words.estimateSize() > threshold && (prefix = words.trySplit()) != null) {
+		CountTask left = new CountTask(prefix, threshold, tables);
+		left.fork();
+		new CountTask(words, threshold, tables).compute();
+		left.join();
+		return;
+	    }
+	    WordFrequencies table = tables.computeIfAbsent(Thread.currentThread(), thread -> new WordFrequencies());
+	    while (words.nextWord()) {
+		table.add(words.wordBytes(), 0, (int) (words.wordEnd - words.wordStart), 1);
+	    }
+	}
+    }
+
+    /**
+     * Returns the FNV-1a hash of bytes[offset, offset + length), with its bits mixed so that the low ones can index the table, and never 0.
+     */
+    private static int hash(byte[] bytes, int offset, int length) {
+	int h = 0x811C9DC5;
+	for (int i = offset; i < offset + length; i++) {
+	    h = (h ^ bytes[i] & 0xFF) * 0x01000193;
+	}
+	h ^= h >>> 16;
+	h *= 0x85EBCA6B;
+	h ^= h >>> 13;
+	return h == 0 ? 1 : h;
+    }
+
+    /**
+     * Counts one occurrence of word.
+     *
+     * @param word
+     *            - word to count
+     * @throws IllegalStateException
+     *             if the word is new and the table already holds 2<sup>29</sup> distinct words or 2 GiB of word bytes
+     */
+    public void add(CharSequence word) {
+	byte[] bytes = word.toString().getBytes(StandardCharsets.UTF_8);
+	add(bytes, 0, bytes.length, 1);
+    }
+
+    /**
+     * Adds count occurrences of the word whose UTF-8 bytes are bytes[offset, offset + length).
+     *
+     * @param bytes
+     *            - array holding the word
+     * @param offset
+     *            - index of the first byte of the word
+     * @param length
+     *            - number of bytes of the word
+     * @param count
+     *            - occurrences to add
+     * @throws IllegalStateException
+     *             if the word is new and the table already holds 2<sup>29</sup> distinct words or 2 GiB of word bytes
+     */
+    public void add(byte[] bytes, int offset, int length, long count) {
+	int hash = hash(bytes, offset, length);
+	int slot = slot(bytes, offset, length, hash);
+	if (hashes[slot] == 0) {
+	    int position = reserve(length);
+	    for (int i = 0; i < length; i++) {
+		arena.put(position + i, bytes[offset + i]);
+	    }
+	    insert(slot, hash, position, length, count);
+	} else {
+	    counts[slot] += count;
+	    total += count;
+	}
+    }
+
+    /**
+     * Returns the slot holding the word bytes[offset, offset + length), or the empty slot where it belongs.
+     */
+    private int slot(byte[] bytes, int offset, int length, int hash) {
+	int mask = hashes.length - 1;
+	int slot = hash & mask;
+	while (hashes[slot] != 0 && !(hashes[slot] == hash && lengths[slot] == length && equals(offsets[slot], bytes, offset, length))) {
+	    slot = slot + 1 & mask;
+	}
+	return slot;
+    }
+
+    private boolean equals(int position, byte[] bytes, int offset, int length) {
+	for (int i = 0; i < length; i++) {
+	    if (arena.get(position + i) != bytes[offset + i]) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Returns the slot holding the word bytes[offset, offset + length) of the arena of another table, or the empty slot where it belongs.
+     */
+    private int slot(ByteBuffer bytes, int offset, int length, int hash) {
+	int mask = hashes.length - 1;
+	int slot = hash & mask;
+	while (hashes[slot] != 0 && !(hashes[slot] == hash && lengths[slot] == length && equals(offsets[slot], bytes, offset, length))) {
+	    slot = slot + 1 & mask;
+	}
+	return slot;
+    }
+
+    private boolean equals(int position, ByteBuffer bytes, int offset, int length) {
+	for (int i = 0; i < length; i++) {
+	    if (arena.get(position + i) != bytes.get(offset + i)) {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Returns the arena position of a new word of length bytes, growing the arena if needed.
+     */
+    private int reserve(int length) {
+	if (size == MAX_WORDS) {
+	    throw new IllegalStateException("Word table exceeds " + MAX_WORDS + " distinct words");
+	}
+	int position = arena.position();
+	if (length > arena.capacity() - position) {
+	    if (length > MAX_ARENA - position) {
+		throw new IllegalStateException("Word arena exceeds " + MAX_ARENA + " bytes");
+	    }
+	    ByteBuffer grown = ByteBuffer.allocateDirect((int) Math.min(Math.max((long) arena.capacity() * 2, (long) position + length), MAX_ARENA));
+	    arena.flip();
+	    grown.put(arena);
+	    arena = grown;
+	}
+	arena.position(position + length);
+	return position;
+    }
+
+    private void insert(int slot, int hash, int offset, int length, long count) {
+	hashes[slot] = hash;
+	offsets[slot] = offset;
+	lengths[slot] = length;
+	counts[slot] = count;
+	total += count;
+	// reserve stops at MAX_WORDS, so a table of MAX_CAPACITY slots is never grown
+	if (++size * 2 > hashes.length) {
+	    rehash();
+	}
+    }
+
+    private void rehash() {
+	int[] oldHashes = hashes;
+	int[] oldOffsets = offsets;
+	int[] oldLengths = lengths;
+	long[] oldCounts = counts;
+	int capacity = oldHashes.length * 2;
+	hashes = new int[capacity];
+	offsets = new int[capacity];
+	lengths = new int[capacity];
+	counts = new long[capacity];
+	int mask = capacity - 1;
+	for (int i = 0; i < oldHashes.length; i++) {
+	    if (oldHashes[i] != 0) {
+		int slot = oldHashes[i] & mask;
+		while (hashes[slot] != 0) {
+		    slot = slot + 1 & mask;
+		}
+		hashes[slot] = oldHashes[i];
+		offsets[slot] = oldOffsets[i];
+		lengths[slot] = oldLengths[i];
+		counts[slot] = oldCounts[i];
+	    }
+	}
+    }
+
+    /**
+     * Adds the counts of other to this table, reading its words in place from its arena and reusing their stored hashes.
+     *
+     * @param other
+     *            - table to merge; left unchanged
+     */
+    public void merge(WordFrequencies other) {
+	ByteBuffer bytes = other.arena;
+	for (int i = 0; i < other.hashes.length; i++) {
+	    int hash = other.hashes[i];
+	    if (hash == 0) {
+		continue;
+	    }
+	    int offset = other.offsets[i];
+	    int length = other.lengths[i];
+	    int slot = slot(bytes, offset, length, hash);
+	    if (hashes[slot] == 0) {
+		int position = reserve(length);
+		for (int j = 0; j < length; j++) {
+		    arena.put(position + j, bytes.get(offset + j));
+		}
+		insert(slot, hash, position, length, other.counts[i]);
+	    } else {
+		counts[slot] += other.counts[i];
+		total += other.counts[i];
+	    }
+	}
+    }
+
+    /**
+     * Returns the number of occurrences of word.
+     *
+     * @param word
+     *            - word to look up
+     * @return count of word, or 0 if it was never added
+     */
+    public long count(CharSequence word) {
+	byte[] bytes = word.toString().getBytes(StandardCharsets.UTF_8);
+	int slot = slot(bytes, 0, bytes.length, hash(bytes, 0, bytes.length));
+	return hashes[slot] == 0 ? 0 : counts[slot];
+    }
+
+    /**
+     * Returns the number of distinct words.
+     */
+    public int size() {
+	return size;
+    }
+
+    /**
+     * Returns the number of occurrences of all words.
+     */
+    public long total() {
+	return total;
+    }
+
+    /**
+     * Passes every word and its count to action, in no particular order.
+     *
+     * @param action
+     *            - receives views of the words
+     */
+    public void forEach(WordConsumer action) {
+	ByteBuffer view = arena.asReadOnlyBuffer();
+	for (int i = 0; i < hashes.length; i++) {
+	    if (hashes[i] != 0) {
+		action.accept(view(view, i), counts[i]);
+	    }
+	}
+    }
+
+    private ByteBuffer view(ByteBuffer view, int slot) {
+	view.clear();
+	view.position(offsets[slot]);
+	view.limit(offsets[slot] + lengths[slot]);
+	return view;
+    }
+
+    /**
+     * Passes the k most frequent words to action, most frequent first. Selection keeps a heap of k slot indices, so it takes O(size log k) time and creates
+     * no objects per word.
+     *
+     * @param k
+     *            - number of words
+     * @param action
+     *            - receives views of the words
+     * @throws IllegalArgumentException
+     *             if k is negative
+     */
+    public void topK(int k, WordConsumer action) {
+	if (k < 0) {
+	    throw new IllegalArgumentException("Number of words must not be negative: " + k);
+	}
+	int[] heap = new int[Math.min(k, size)];
+	int heapSize = 0;
+	for (int i = 0; i < hashes.length && heap.length > 0; i++) {
+	    if (hashes[i] == 0) {
+		continue;
+	    }
+	    if (heapSize < heap.length) {
+		heap[heapSize] = i;
+		siftUp(heap, heapSize++);
+	    } else if (counts[i] > counts[heap[0]]) {
+		heap[0] = i;
+		siftDown(heap, heapSize, 0);
+	    }
+	}
+	int[] sorted = new int[heapSize];
+	for (int n = heapSize; n > 0; n--) {
+	    sorted[n - 1] = heap[0];
+	    heap[0] = heap[n - 1];
+	    siftDown(heap, n - 1, 0);
+	}
+	ByteBuffer view = arena.asReadOnlyBuffer();
+	for (int slot : sorted) {
+	    action.accept(view(view, slot), counts[slot]);
+	}
+    }
+
+    /**
+     * Returns the k most frequent words with their counts, most frequent first. Only these k words are decoded into Strings.
+     *
+     * @param k
+     *            - number of words
+     * @return ordered map from word to count
+     * @throws IllegalArgumentException
+     *             if k is negative
+     */
+    public Map<String, Long> top(int k) {
+	Map<String, Long> top = new LinkedHashMap<>();
+	topK(k, (word, count) -> top.put(StandardCharsets.UTF_8.decode(word).toString(), count));
+	return top;
+    }
+
+    private void siftUp(int[] heap, int i) {
+	int slot = heap[i];
+	while (i > 0) {
+	    int parent = (i - 1) >>> 1;
+	    if (counts[heap[parent]] <= counts[slot]) {
+		break;
+	    }
+	    heap[i] = heap[parent];
+	    i = parent;
+	}
+	heap[i] = slot;
+    }
+
+    private void siftDown(int[] heap, int n, int i) {
+	int slot = heap[i];
+	for (int child = 2 * i + 1; child < n; child = 2 * i + 1) {
+	    if (child + 1 < n && counts[heap[child + 1]] < counts[heap[child]]) {
+		child++;
+	    }
+	    if (counts[heap[child]] >= counts[slot]) {
+		break;
+	    }
+	    heap[i] = heap[child];
+	    i = child;
+	}
+	heap[i] = slot;
+    }
+}
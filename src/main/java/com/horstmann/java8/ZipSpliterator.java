@@ -0,0 +1,141 @@
+package com.horstmann.java8;
+
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Spliterator that lazily pulls one element from each of two sources per step and emits them downstream. Nothing is buffered beyond the current pair.
+ *
+ * <p>
+ * When both sources are SIZED and SUBSIZED the result is too, and {@link #trySplit()} splits both sources together. The split is kept only if both
+ * prefixes have the same size, which is the case for array-, list- and range-backed sources of equal length; otherwise the sources are stitched back
+ * together and this spliterator stays sequential.
+ * </p>
+ */
+abstract class ZipSpliterator<A, B, R> implements Spliterator<R> {
+
+    private static final int CHARACTERISTICS = ORDERED | SIZED | SUBSIZED;
+
+    private Spliterator<A> first;
+    private Spliterator<B> second;
+    private boolean splittable = true;
+
+    private A a;
+    private B b;
+    private final Consumer<A> holdA = x -> a = x;
+    private final Consumer<B> holdB = x -> b = x;
+
+    ZipSpliterator(Spliterator<A> first, Spliterator<B> second) {
+	this.first = first;
+	this.second = second;
+    }
+
+    /**
+     * Returns a spliterator that applies combiner to each pair of elements.
+     */
+    static <A, B, R> ZipSpliterator<A, B, R> combining(Spliterator<A> first, Spliterator<B> second, BiFunction<? super A, ? super B, ? extends R> combiner) {
+	return new ZipSpliterator<A, B, R>(first, second) {
+	    @Override
+	    void emit(A a, B b, Consumer<? super R> action) {
+		action.accept(combiner.apply(a, b));
+	    }
+
+	    @Override
+	    int elementsPerPair() {
+		return 1;
+	    }
+
+	    @Override
+	    ZipSpliterator<A, B, R> create(Spliterator<A> first, Spliterator<B> second) {
+		return combining(first, second, combiner);
+	    }
+	};
+    }
+
+    /**
+     * Returns a spliterator that emits the element of first, then the element of second, for each pair.
+     */
+    static <T> ZipSpliterator<T, T, T> alternating(Spliterator<T> first, Spliterator<T> second) {
+	return new ZipSpliterator<T, T, T>(first, second) {
+	    @Override
+	    void emit(T a, T b, Consumer<? super T> action) {
+		action.accept(a);
+		action.accept(b);
+	    }
+
+	    @Override
+	    int elementsPerPair() {
+		return 2;
+	    }
+
+	    @Override
+	    ZipSpliterator<T, T, T> create(Spliterator<T> first, Spliterator<T> second) {
+		return alternating(first, second);
+	    }
+	};
+    }
+
+    abstract void emit(A a, B b, Consumer<? super R> action);
+
+    abstract int elementsPerPair();
+
+    abstract ZipSpliterator<A, B, R> create(Spliterator<A> first, Spliterator<B> second);
+
+    @Override
+    public boolean tryAdvance(Consumer<? super R> action) {
+	try {
+	    if (first.tryAdvance(holdA) && second.tryAdvance(holdB)) {
+		emit(a, b, action);
+		return true;
+	    }
+	    return false;
+	} finally {
+	    a = null;
+	    b = null;
+	}
+    }
+
+    @Override
+    public Spliterator<R> trySplit() {
+	if (!splittable || !hasCharacteristics(SUBSIZED)) {
+	    return null;
+	}
+	Spliterator<A> firstPrefix = first.trySplit();
+	Spliterator<B> secondPrefix = second.trySplit();
+	if (firstPrefix == null && secondPrefix == null) {
+	    return null;
+	}
+	if (firstPrefix != null && secondPrefix != null && firstPrefix.getExactSizeIfKnown() == secondPrefix.getExactSizeIfKnown()) {
+	    return create(firstPrefix, secondPrefix);
+	}
+	first = concat(firstPrefix, first);
+	second = concat(secondPrefix, second);
+	splittable = false;
+	return null;
+    }
+
+    @Override
+    public long estimateSize() {
+	long size = Math.min(first.estimateSize(), second.estimateSize());
+	return size > Long.MAX_VALUE / elementsPerPair() ? Long.MAX_VALUE : size * elementsPerPair();
+    }
+
+    @Override
+    public int characteristics() {
+	int characteristics = first.characteristics() & second.characteristics() & CHARACTERISTICS;
+	if ((characteristics & SIZED) != 0 && Math.min(first.estimateSize(), second.estimateSize()) > Long.MAX_VALUE / elementsPerPair()) {
+	    characteristics &= ~(SIZED | SUBSIZED);
+	}
+	return characteristics;
+    }
+
+    private static <T> Spliterator<T> concat(Spliterator<T> prefix, Spliterator<T> suffix) {
+	if (prefix == null) {
+	    return suffix;
+	}
+	return Stream.concat(StreamSupport.stream(prefix, false), StreamSupport.stream(suffix, false)).spliterator();
+    }
+}
@@ -2,14 +2,38 @@ package com.horstmann.java8;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FilenameFilter;
+import java.io.IOException;
+import java.net.URI;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 import org.hamcrest.Matchers;
@@ -206,4 +230,414 @@ public class LambdaExpressionsTest {
 	Assert.assertThat(mailingLists.get(3), Matchers.not(Matchers.hasItem("April")));
 	
     }
+
+    /**
+     * Repeat test9 with the array-backed ArrayList2, check its deque operations against LinkedList2 and through its reversed view, and compare the time
+     * forEachIf takes on a million elements.
+     */
+    @Test
+    public void test10() {
+	ArrayList2<List<String>> mailingLists = new ArrayList2<>();
+	mailingLists.add(Stream.of("Peter", "Paul", "Mary").collect(Collectors.toList()));
+	mailingLists.add(Stream.of("John", "Victor", "Anna").collect(Collectors.toList()));
+	mailingLists.add(Stream.of("Peter", "Mary", "Anna").collect(Collectors.toList()));
+	mailingLists.add(Stream.of("Victor").collect(Collectors.toList()));
+	mailingLists.forEachIf(x -> x.add("April"), x -> x.contains("Mary"));
+	Assert.assertThat(mailingLists.get(0), Matchers.hasItem("April"));
+	Assert.assertThat(mailingLists.get(1), Matchers.not(Matchers.hasItem("April")));
+	Assert.assertThat(mailingLists.get(2), Matchers.hasItem("April"));
+	Assert.assertThat(mailingLists.get(3), Matchers.not(Matchers.hasItem("April")));
+
+	ArrayList2<Integer> array = new ArrayList2<>();
+	LinkedList2<Integer> linked = new LinkedList2<>();
+	for (int i = 0; i < 100; i++) {
+	    array.addFirst(i);
+	    linked.addFirst(i);
+	    array.addLast(-i);
+	    linked.addLast(-i);
+	}
+	array.add(50, 1000);
+	linked.add(50, 1000);
+	array.remove(150);
+	linked.remove(150);
+	array.removeIf(x -> x % 7 == 0);
+	linked.removeIf(x -> x % 7 == 0);
+	Assert.assertThat(array, Matchers.is(linked));
+	Assert.assertThat(array.pollLast(), Matchers.is(linked.pollLast()));
+	Assert.assertThat(array.pop(), Matchers.is(linked.pop()));
+	Deque<Integer> deque = array;
+	Assert.assertThat(deque.peekLast(), Matchers.is(linked.peekLast()));
+	List<Integer> reversed = new ArrayList<>(linked);
+	Collections.reverse(reversed);
+	Deque<Integer> view = array.reversed();
+	Assert.assertThat(new ArrayList<>(view), Matchers.is(reversed));
+	view.addFirst(2000);
+	Assert.assertThat(array.peekLast(), Matchers.is(2000));
+	array.addFirst(3000);
+	Assert.assertThat(view.pollLast(), Matchers.is(3000));
+	Assert.assertThat(view.pollFirst(), Matchers.is(2000));
+	Assert.assertThat(array.reversed().reversed(), Matchers.sameInstance(array));
+
+	List<Integer> before = new ArrayList<>(array);
+	try {
+	    array.removeIf(x -> {
+		if (x == before.get(before.size() / 2)) {
+		    throw new IllegalStateException();
+		}
+		return x % 2 == 0;
+	    });
+	    Assert.fail();
+	} catch (IllegalStateException e) {
+	    Assert.assertThat(array, Matchers.is(before));
+	}
+	Assert.assertThat(array.spliterator().hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED), Matchers.is(true));
+	Assert.assertThat(array.parallelStream().collect(Collectors.toList()), Matchers.is(before));
+
+	int size = 1000000;
+	ArrayList2<Integer> arrayBacked = new ArrayList2<>(size);
+	LinkedList2<Integer> nodeBacked = new LinkedList2<>();
+	for (int i = 0; i < size; i++) {
+	    arrayBacked.add(i);
+	    nodeBacked.add(i);
+	}
+	LongAdder sum1 = new LongAdder();
+	LongAdder sum2 = new LongAdder();
+	long snapshot1 = System.currentTimeMillis();
+	nodeBacked.forEachIf(sum1::add, x -> x % 3 == 0);
+	long snapshot2 = System.currentTimeMillis();
+	arrayBacked.forEachIf(sum2::add, x -> x % 3 == 0);
+	long snapshot3 = System.currentTimeMillis();
+	System.out.println("LinkedList2 forEachIf time: " + (snapshot2 - snapshot1));
+	System.out.println("ArrayList2 forEachIf time: " + (snapshot3 - snapshot2));
+	Assert.assertThat(sum2.sum(), Matchers.is(sum1.sum()));
+    }
+
+    /**
+     * Verify the fused bulk operations of Collection2 on both implementations, and that parallelForEachIf visits every matching element exactly once.
+     */
+    @Test
+    public void test11() {
+	List<Collection2<Integer>> collections = Arrays.asList(new LinkedList2<>(), new ArrayList2<>());
+	for (Collection2<Integer> numbers : collections) {
+	    for (int i = 0; i < 100000; i++) {
+		numbers.add(i);
+	    }
+	    Assert.assertThat(numbers.countIf(x -> x % 2 == 0), Matchers.is(50000L));
+
+	    LongAdder sum = new LongAdder();
+	    numbers.parallelForEachIf(sum::add, x -> x % 2 == 0);
+	    Assert.assertThat(sum.sum(), Matchers.is(LongStream.range(0, 50000).map(x -> 2 * x).sum()));
+
+	    Map<Boolean, List<Integer>> partition = numbers.partitionIf(x -> x < 10);
+	    Assert.assertThat(partition.get(true), Matchers.is(IntStream.range(0, 10).boxed().collect(Collectors.toList())));
+	    Assert.assertThat(partition.get(false), Matchers.hasSize(99990));
+
+	    List<Integer> removed = numbers.removeAndCollectIf(x -> x >= 5);
+	    Assert.assertThat(removed, Matchers.is(IntStream.range(5, 100000).boxed().collect(Collectors.toList())));
+	    Assert.assertThat(numbers, Matchers.contains(0, 1, 2, 3, 4));
+	}
+    }
+
+    /**
+     * Chain many runnables with andThen without overflowing the stack, and run independent stages in batches on a pool instead of a thread each.
+     */
+    @Test
+    public void test12() {
+	LongAdder sum = new LongAdder();
+	Runnable chain = () -> sum.increment();
+	for (int i = 1; i < 100000; i++) {
+	    chain = DoubleRunnable.andThen(chain, () -> sum.increment());
+	}
+	chain.run();
+	Assert.assertThat(sum.intValue(), Matchers.is(100000));
+	Assert.assertThat(((RunnablePipeline) chain).size(), Matchers.is(100000));
+
+	RunnablePipeline.Builder builder = RunnablePipeline.builder();
+	for (int i = 0; i < 1000; i++) {
+	    int value = i;
+	    builder.then(() -> sum.add(value));
+	}
+	RunnablePipeline pipeline = builder.build();
+	ExecutorService executor = Executors.newFixedThreadPool(4);
+	try {
+	    sum.reset();
+	    pipeline.runIndependently(executor, 64).join();
+	    Assert.assertThat(sum.intValue(), Matchers.is(999 * 1000 / 2));
+	    sum.reset();
+	    pipeline.runAsync(executor).join();
+	    Assert.assertThat(sum.intValue(), Matchers.is(999 * 1000 / 2));
+	} finally {
+	    executor.shutdown();
+	}
+    }
+
+    /**
+     * Check how each UncheckMode propagates a checked exception. UncheckBenchmark in the benchmarks module compares their costs.
+     */
+    @Test
+    public void test13() {
+	IOException failure = new IOException("disk full");
+	FunctionEx<String, Integer> parse = s -> {
+	    if (s.isEmpty()) {
+		throw failure;
+	    }
+	    return s.length();
+	};
+	Assert.assertThat(FunctionEx.uncheck(parse).apply("abc"), Matchers.is(3));
+
+	for (UncheckMode mode : UncheckMode.values()) {
+	    Function<String, Integer> unchecked = FunctionEx.uncheck(parse, mode);
+	    Exception thrown = null;
+	    try {
+		unchecked.apply("");
+	    } catch (Exception e) {
+		thrown = e;
+	    }
+	    if (mode == UncheckMode.SNEAKY) {
+		Assert.assertThat(thrown, Matchers.sameInstance((Exception) failure));
+	    } else {
+		Assert.assertThat(thrown.getCause(), Matchers.sameInstance((Throwable) failure));
+	    }
+	    Assert.assertThat(thrown.getStackTrace().length == 0, Matchers.is(mode == UncheckMode.LIGHTWEIGHT));
+	}
+
+	IllegalStateException illegal = new IllegalStateException();
+	try {
+	    PredicateEx.uncheck(x -> {
+		throw illegal;
+	    }, UncheckMode.LIGHTWEIGHT).test(null);
+	    Assert.fail();
+	} catch (IllegalStateException e) {
+	    Assert.assertThat(e, Matchers.sameInstance(illegal));
+	}
+	Assert.assertThat(SupplierEx.uncheck(() -> "called").get(), Matchers.is("called"));
+	Callable<String> callable = () -> "called";
+	Assert.assertThat(SupplierEx.uncheck(callable::call).get(), Matchers.is("called"));
+	Assert.assertThat(Stream.of("a", "bb", "ccc").mapToInt(ToIntFunctionEx.uncheck(String::length)).sum(), Matchers.is(6));
+	Assert.assertThat(IntStream.range(0, 3).mapToObj(IntFunctionEx.uncheck(Integer::toString)).collect(Collectors.joining()), Matchers.is("012"));
+	Assert.assertThat(Stream.of("a", "bb").reduce("", BiFunctionEx.uncheck(String::concat), String::concat), Matchers.is("abb"));
+	ObjIntConsumer<StringBuilder> append = ObjIntConsumerEx.uncheck(StringBuilder::append);
+	Assert.assertThat(IntStream.range(0, 3).collect(StringBuilder::new, append, StringBuilder::append).toString(), Matchers.is("012"));
+    }
+
+    /**
+     * List subdirectories and files by extension as in test2 and test3, but lazily with NIO: compare with File.listFiles on a temporary tree, search it by
+     * glob at several depths, close a search early without waiting for the rest of the tree, and search again while more searches than there are processors
+     * are stalled. Search a zip file system by glob as well.
+     */
+    @Test
+    public void test14() throws IOException {
+	Path root = Files.createTempDirectory("walk");
+	try {
+	    Files.createDirectories(root.resolve("a/deep"));
+	    Files.createDirectories(root.resolve("b"));
+	    for (String file : new String[] { "a/x.txt", "a/y.log", "a/deep/z.txt", "c.txt" }) {
+		Files.createFile(root.resolve(file));
+	    }
+	    for (int i = 0; i < 3000; i++) {
+		Files.createFile(root.resolve("b/" + i + ".log"));
+	    }
+
+	    try (Stream<Path> subdirectories = Streams.subdirectories(root)) {
+		Set<File> expected = Stream.of(listSubdirsMethodRef(root.toString())).collect(Collectors.toSet());
+		Assert.assertThat(subdirectories.map(Path::toFile).collect(Collectors.toSet()), Matchers.is(expected));
+	    }
+	    try (Stream<Path> files = Streams.filesMatching(root, "*.txt", Integer.MAX_VALUE)) {
+		Assert.assertThat(files.map(root::relativize).map(Path::toString).collect(Collectors.toSet()),
+			Matchers.containsInAnyOrder("a/x.txt", "a/deep/z.txt", "c.txt"));
+	    }
+	    try (Stream<Path> files = Streams.filesMatching(root, "*.txt", 2)) {
+		Assert.assertThat(files.map(root::relativize).map(Path::toString).collect(Collectors.toSet()),
+			Matchers.containsInAnyOrder("a/x.txt", "c.txt"));
+	    }
+	    try (Stream<Path> files = Streams.filesMatching(root, "a/**.txt", Integer.MAX_VALUE)) {
+		Assert.assertThat(files.count(), Matchers.is(2L));
+	    }
+	    try (Stream<Path> files = Streams.filesMatching(root, "*.log", Integer.MAX_VALUE)) {
+		Assert.assertThat(files.count(), Matchers.is(3001L));
+	    }
+	    try (Stream<Path> files = Streams.filesMatching(root, "*.log", Integer.MAX_VALUE)) {
+		Assert.assertThat(files.limit(5).count(), Matchers.is(5L));
+	    }
+	    try (FileSystem zip = FileSystems.newFileSystem(URI.create("jar:" + root.resolve("tree.zip").toUri()), Collections.singletonMap("create", "true"))) {
+		Files.createDirectories(zip.getPath("/a/deep"));
+		for (String file : new String[] { "/a/x.txt", "/a/y.log", "/a/deep/z.txt", "/c.txt" }) {
+		    Files.createFile(zip.getPath(file));
+		}
+		try (Stream<Path> files = Streams.filesMatching(zip.getPath("/"), "a/**.txt", Integer.MAX_VALUE)) {
+		    Assert.assertThat(files.map(Path::toString).collect(Collectors.toSet()), Matchers.containsInAnyOrder("/a/x.txt", "/a/deep/z.txt"));
+		}
+	    }
+	    // walks whose consumers stall with a full queue park instead of holding workers, so more of them than the shared pool has workers must not hold
+	    // up a later walk, and closing them releases their directories
+	    List<Stream<Path>> stalled = new ArrayList<>();
+	    try {
+		for (int i = 0; i < 2 * Runtime.getRuntime().availableProcessors(); i++) {
+		    Stream<Path> files = Streams.filesMatching(root, "*.log", Integer.MAX_VALUE);
+		    stalled.add(files);
+		    Assert.assertThat(files.findFirst().isPresent(), Matchers.is(true));
+		}
+		try (Stream<Path> files = Streams.filesMatching(root, "*.log", Integer.MAX_VALUE)) {
+		    Assert.assertThat(files.count(), Matchers.is(3001L));
+		}
+	    } finally {
+		stalled.forEach(Stream::close);
+	    }
+	} finally {
+	    try (Stream<Path> paths = Files.walk(root)) {
+		paths.sorted(Comparator.reverseOrder()).forEach(ConsumerEx.uncheck(Files::delete));
+	    }
+	}
+    }
+
+    /**
+     * Sort the files of test4, directories first and then by name, calling isDirectory and getName once per file instead of in every comparison. Check the
+     * primitive-key sorts against a stable comparator sort, including long keys too far apart to be packed, also as the last of several keys.
+     */
+    @Test
+    public void test15() {
+	int size = 200;
+	File[] array = new File[size];
+	boolean[] directory = new boolean[size];
+	String[] name = new String[size];
+	for (int i = 0; i < size; i++) {
+	    directory[i] = i % 3 == 0;
+	    name[i] = String.valueOf((i * 7919) % size);
+	    array[i] = Mockito.mock(File.class);
+	    Mockito.when(array[i].isDirectory()).thenReturn(directory[i]);
+	    Mockito.when(array[i].getName()).thenReturn(name[i]);
+	}
+	File[] sorted = array.clone();
+	Sorting.sortByKeys(sorted, f -> !f.isDirectory(), File::getName);
+	for (File file : array) {
+	    Mockito.verify(file, Mockito.times(1)).isDirectory();
+	    Mockito.verify(file, Mockito.times(1)).getName();
+	}
+	Integer[] expected = IntStream.range(0, size).boxed().toArray(Integer[]::new);
+	Arrays.sort(expected, Comparator.<Integer, Boolean> comparing(i -> !directory[i]).thenComparing(i -> name[i]));
+	for (int i = 0; i < size; i++) {
+	    Assert.assertThat(sorted[i], Matchers.sameInstance(array[expected[i]]));
+	}
+
+	Random random = new Random(7);
+	Integer[] ints = random.ints(100000, -1000, 1000).boxed().toArray(Integer[]::new);
+	Integer[] byComparator = ints.clone();
+	Arrays.sort(byComparator, Comparator.comparingInt(x -> x));
+	Sorting.sortByIntKey(ints, x -> x);
+	Assert.assertThat(ints, Matchers.is(byComparator));
+
+	for (long bound : new long[] { 1L << 20, Long.MAX_VALUE }) {
+	    Long[] longs = random.longs(100000, -bound, bound).boxed().toArray(Long[]::new);
+	    Long[] expectedLongs = longs.clone();
+	    Arrays.sort(expectedLongs, Comparator.comparingLong(x -> x / 16));
+	    Sorting.sortByLongKey(longs, x -> x / 16);
+	    Assert.assertThat(longs, Matchers.is(expectedLongs));
+	}
+
+	for (long bound : new long[] { 1L << 20, Long.MAX_VALUE }) {
+	    Long[] longs = random.longs(100000, -bound, bound).boxed().toArray(Long[]::new);
+	    Long[] expectedLongs = longs.clone();
+	    Comparator<Long> byKeys = Comparator.<Long, Boolean> comparing(x -> x % 2 == 0).thenComparing(x -> (int) (x % 100)).thenComparing(x -> x / 16);
+	    Arrays.sort(expectedLongs, byKeys);
+	    Sorting.sortByKeys(longs, x -> x % 2 == 0, x -> (int) (x % 100), x -> x / 16);
+	    Assert.assertThat(longs, Matchers.is(expectedLongs));
+	}
+    }
+
+    /**
+     * Run the tasks that test6 and test8 start on a thread each on a bounded runner instead: wait for a whole batch, get its checked exceptions back, and
+     * check that producers are held back until a task finishes, or rejected, when too many tasks are in flight.
+     */
+    @Test
+    public void test16() throws Exception {
+	LongAdder sum = new LongAdder();
+	try (TaskRunner runner = TaskRunner.workStealing(4, 64, TaskRunner.Backpressure.BLOCK)) {
+	    List<RunnableEx> tasks = new ArrayList<>();
+	    for (int i = 0; i < 1000; i++) {
+		int n = i;
+		tasks.add(() -> {
+		    if (n % 100 == 0) {
+			throw new IOException("Task " + n);
+		    }
+		    sum.increment();
+		});
+	    }
+	    runner.submitAll(tasks);
+	    try {
+		runner.await();
+		Assert.fail();
+	    } catch (ExecutionException e) {
+		Assert.assertThat(e.getCause(), Matchers.instanceOf(IOException.class));
+		Assert.assertThat(e.getSuppressed().length, Matchers.is(9));
+	    }
+	    Assert.assertThat(sum.intValue(), Matchers.is(990));
+
+	    runner.executeAll(Arrays.asList(DoubleRunnable.andThen(() -> sum.increment(), () -> sum.add(2L)), () -> sum.add(3L)));
+	    runner.await();
+	    Assert.assertThat(sum.intValue(), Matchers.is(996));
+
+	    AtomicInteger inFlight = new AtomicInteger();
+	    AtomicInteger maxInFlight = new AtomicInteger();
+	    for (int i = 0; i < 1000; i++) {
+		runner.execute(() -> {
+		    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+		    Thread.yield();
+		    inFlight.decrementAndGet();
+		});
+	    }
+	    runner.await();
+	    Assert.assertThat(maxInFlight.get(), Matchers.lessThanOrEqualTo(4));
+	}
+
+	CountDownLatch gate = new CountDownLatch(1);
+	try (TaskRunner runner = TaskRunner.workStealing(2, 3, TaskRunner.Backpressure.BLOCK)) {
+	    for (int i = 0; i < 3; i++) {
+		runner.submit(gate::await);
+	    }
+	    CountDownLatch submitted = new CountDownLatch(1);
+	    Thread producer = new Thread(() -> {
+		runner.execute(sum::increment);
+		submitted.countDown();
+	    });
+	    producer.start();
+	    Assert.assertThat(submitted.await(200, TimeUnit.MILLISECONDS), Matchers.is(false));
+	    Assert.assertThat(producer.getState(), Matchers.is(Thread.State.WAITING));
+	    gate.countDown();
+	    Assert.assertThat(submitted.await(10, TimeUnit.SECONDS), Matchers.is(true));
+	    producer.join();
+	    runner.await();
+	    Assert.assertThat(sum.intValue(), Matchers.is(997));
+	}
+
+	CountDownLatch release = new CountDownLatch(1);
+	try (TaskRunner runner = TaskRunner.workStealing(1, 1, TaskRunner.Backpressure.REJECT)) {
+	    runner.submit(release::await);
+	    try {
+		runner.execute(sum::increment);
+		Assert.fail();
+	    } catch (RejectedExecutionException e) {
+		release.countDown();
+	    }
+	    runner.await();
+	    runner.execute(sum::increment);
+	    runner.await();
+	    Assert.assertThat(sum.intValue(), Matchers.is(998));
+	}
+
+	if (TaskRunner.virtualThreadsAvailable()) {
+	    try (TaskRunner runner = TaskRunner.virtualThreads(100, TaskRunner.Backpressure.BLOCK)) {
+		for (int i = 0; i < 1000; i++) {
+		    runner.submit(() -> Thread.sleep(1));
+		}
+		runner.await();
+	    }
+	} else {
+	    try {
+		TaskRunner.virtualThreads(100, TaskRunner.Backpressure.BLOCK);
+		Assert.fail();
+	    } catch (UnsupportedOperationException e) {
+		Assert.assertThat(e.getMessage(), Matchers.notNullValue());
+	    }
+	}
+    }
 }
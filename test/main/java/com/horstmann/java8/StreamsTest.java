@@ -4,21 +4,38 @@ import static java.lang.System.*;
 import static java.util.stream.Collectors.*;
 import static org.hamcrest.Matchers.*;
 
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
 import java.net.URL;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -263,4 +280,570 @@ public class StreamsTest {
 	Assert.assertThat(lengths.get(3), is(143619L));
     }
 
+    /**
+     * Verify that zipWith pulls lazily from infinite streams and that zipping two SIZED sources yields a stream that can be split for parallel use.
+     */
+    @Test
+    public void test14() {
+	List<String> labels = Streams.zipWith(Stream.iterate(1, x -> x + 1), Stream.of("a", "b", "c"), (n, s) -> s + n).collect(toList());
+	Assert.assertThat(labels, is(Arrays.asList("a1", "b2", "c3")));
+
+	List<Integer> numbers = IntStream.range(0, 10000).boxed().collect(toList());
+	Spliterator<Integer> spliterator = Streams.zipWith(numbers.stream(), numbers.stream(), Integer::sum).spliterator();
+	Assert.assertThat(spliterator.getExactSizeIfKnown(), is(10000L));
+	Assert.assertThat(spliterator.trySplit(), notNullValue());
+
+	List<Integer> sums = Streams.zipWith(numbers.parallelStream(), numbers.stream(), Integer::sum).collect(toList());
+	Assert.assertThat(sums, is(numbers.stream().map(x -> 2 * x).collect(toList())));
+	List<Integer> zipped = Streams.zip(numbers.parallelStream(), numbers.stream()).collect(toList());
+	Assert.assertThat(zipped, is(numbers.stream().flatMap(x -> Stream.of(x, x)).collect(toList())));
+    }
+
+    /**
+     * Verify that the linear congruential generator produces the same sequence in parallel as sequentially, for power-of-two and other moduli, and that
+     * it matches the recurrence computed with arbitrary precision. The sequence without end must not report a size.
+     */
+    @Test
+    public void test15() {
+	long[][] parameters = { { 25214903917L, 11L, 1L << 48 }, { 48271L, 0L, Integer.MAX_VALUE }, { 6364136223846793005L, 1442695040888963407L, (1L << 61) - 1 } };
+	for (long[] p : parameters) {
+	    long[] sequential = Streams.linearCongruential(100000, 42L, p[0], p[1], p[2]).toArray();
+	    long[] parallel = Streams.linearCongruential(100000, 42L, p[0], p[1], p[2]).parallel().toArray();
+	    Assert.assertArrayEquals(sequential, parallel);
+
+	    BigInteger x = BigInteger.valueOf(42L);
+	    for (int i = 0; i < 1000; i++) {
+		Assert.assertThat(sequential[i], is(x.longValue()));
+		x = x.multiply(BigInteger.valueOf(p[0])).add(BigInteger.valueOf(p[1])).mod(BigInteger.valueOf(p[2]));
+	    }
+	}
+	List<Long> boxed = Streams.randomLongs(42L, 25214903917L, 11L, 1L << 48).limit(3).collect(toList());
+	Assert.assertThat(boxed, is(Arrays.asList(42L, 1059025964525L, 197491923327988L)));
+	Assert.assertThat(Streams.linearCongruential(42L, 25214903917L, 11L, 1L << 48).spliterator().hasCharacteristics(Spliterator.SIZED), is(false));
+	Assert.assertThat(Streams.linearCongruential(100, 42L, 25214903917L, 11L, 1L << 48).spliterator().getExactSizeIfKnown(), is(100L));
+	Assert.assertThat(Streams.linearCongruential(42L, 25214903917L, 11L, 1L << 48).parallel().limit(100000).toArray(),
+		is(Streams.linearCongruential(100000, 42L, 25214903917L, 11L, 1L << 48).toArray()));
+    }
+
+    /**
+     * Verify that char and code point streams over a CharBuffer decoded from a mapped file agree with String, and that parallel splitting never breaks a
+     * surrogate pair.
+     */
+    @Test
+    public void test16() throws Exception {
+	CharBuffer book;
+	try (FileChannel channel = FileChannel.open(Paths.get(BOOK_URL.toURI()))) {
+	    book = StandardCharsets.UTF_8.decode(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+	}
+	String contents = book.toString();
+	Assert.assertThat(Streams.chars(book).parallel().filter(Character::isLetter).count(), is(contents.chars().filter(Character::isLetter).count()));
+
+	StringBuilder builder = new StringBuilder();
+	for (int i = 0; i < 10000; i++) {
+	    builder.append('a').appendCodePoint(0x1F600 + i % 80);
+	}
+	Assert.assertArrayEquals(builder.codePoints().toArray(), Streams.codePoints(builder).parallel().toArray());
+	Assert.assertArrayEquals(builder.chars().toArray(), Streams.chars(builder).parallel().toArray());
+	Assert.assertThat(Streams.characterStream(builder).count(), is(30000L));
+    }
+
+    /**
+     * Verify that tokenizing the mapped book yields the same words as splitting its contents, sequentially and in parallel.
+     */
+    @Test
+    public void test17() throws Exception {
+	Path path = Paths.get(BOOK_URL.toURI());
+	List<String> expected = Stream.of(WORDS).filter(w -> !w.isEmpty()).collect(toList());
+	Assert.assertThat(Streams.words(path).collect(toList()), is(expected));
+	Assert.assertThat(Streams.words(path).parallel().collect(toList()), is(expected));
+	Assert.assertThat(Streams.words(path).parallel().filter(w -> w.length() > 12).count(), is(1946L));
+    }
+
+    /**
+     * Count short words with the histogram collector and compare the result and the time taken with the AtomicInteger array of test12 and the concurrent
+     * grouping of test13.
+     */
+    @Test
+    public void test18() {
+	long snapshot1 = currentTimeMillis();
+	AtomicInteger[] atomic = Stream.generate(AtomicInteger::new).limit(12).toArray(AtomicInteger[]::new);
+	Stream.of(WORDS).parallel().forEach(s -> {
+	    if (s.length() < 12) {
+		atomic[s.length()].getAndIncrement();
+	    }
+	});
+	long snapshot2 = currentTimeMillis();
+	ConcurrentMap<Integer, Long> grouped = Stream.of(WORDS).parallel().collect(groupingByConcurrent(String::length, counting()));
+	long snapshot3 = currentTimeMillis();
+	long[] histogram = Stream.of(WORDS).parallel().filter(s -> s.length() < 12).collect(Collectors2.histogram(String::length, 12));
+	long snapshot4 = currentTimeMillis();
+	out.println("AtomicInteger[] time: " + (snapshot2 - snapshot1));
+	out.println("groupingByConcurrent time: " + (snapshot3 - snapshot2));
+	out.println("histogram time: " + (snapshot4 - snapshot3));
+
+	Assert.assertThat(histogram[3], is(143619L));
+	for (int i = 0; i < 12; i++) {
+	    Assert.assertThat(histogram[i], is((long) atomic[i].get()));
+	    Assert.assertThat(histogram[i], is(grouped.getOrDefault(i, 0L)));
+	}
+    }
+
+    /**
+     * Collect a parallel stream of known size by writing each element at its index, as attempted in test11, and verify that encounter order is kept.
+     */
+    @Test
+    public void test19() {
+	int size = 100000;
+	List<Integer> expected = IntStream.rangeClosed(1, size).boxed().collect(toList());
+
+	Assert.assertThat(Streams.toList(IntStream.rangeClosed(1, size).parallel().boxed()), is(expected));
+	Assert.assertThat(Streams.toList(expected.parallelStream().filter(x -> x > 0)), is(expected));
+	Assert.assertArrayEquals(Streams.toArray(expected.parallelStream().map(String::valueOf), String[]::new),
+		expected.stream().map(String::valueOf).toArray(String[]::new));
+	Assert.assertArrayEquals(Streams.toArray(IntStream.rangeClosed(1, size).parallel()), IntStream.rangeClosed(1, size).toArray());
+	Assert.assertArrayEquals(Streams.toArray(LongStream.rangeClosed(1, size).parallel().map(x -> x * x)),
+		LongStream.rangeClosed(1, size).map(x -> x * x).toArray());
+	Assert.assertArrayEquals(Streams.toArray(IntStream.rangeClosed(1, size).parallel().asDoubleStream()),
+		IntStream.rangeClosed(1, size).asDoubleStream().toArray(), 0D);
+    }
+
+    /**
+     * Count the long words of test1 with ParallelArrays instead of a fresh thread pool and a busy wait, and check reduce and forEachRange against the
+     * sequential results, with an operator that is not commutative, on tiny inputs and on a larger one.
+     */
+    @Test
+    public void test20() {
+	Assert.assertThat(ParallelArrays.countIf(WORDS, w -> w.length() > 12), is(1946L));
+	Assert.assertThat(ParallelArrays.countIf(Arrays.asList(WORDS), w -> w.length() > 12), is(1946L));
+
+	Integer[] lengths = Stream.of(WORDS).map(String::length).toArray(Integer[]::new);
+	int expected = Stream.of(WORDS).mapToInt(String::length).sum();
+	Assert.assertThat(ParallelArrays.reduce(lengths, 0, Integer::sum), is(expected));
+	Assert.assertThat(ParallelArrays.reduce(new LinkedList<>(Arrays.asList(lengths)), 0, Integer::sum), is(expected));
+
+	int[] copied = new int[lengths.length];
+	ParallelArrays.forEachRange(lengths, (from, to) -> {
+	    for (int i = from; i < to; i++) {
+		copied[i] = lengths[i];
+	    }
+	});
+	Assert.assertThat(IntStream.of(copied).sum(), is(expected));
+
+	for (int size : new int[] { 0, 1, 3, 10000 }) {
+	    String[] words = Arrays.copyOf(WORDS, size);
+	    Assert.assertThat(ParallelArrays.reduce(words, "", String::concat), is(String.join("", words)));
+	    Assert.assertThat(ParallelArrays.countIf(Arrays.asList(words), w -> w.length() > 12), is(Stream.of(words).filter(w -> w.length() > 12).count()));
+	}
+    }
+
+    /**
+     * Instrument the pipeline of test2 before and after the filter, and read the counters back through the platform MBean server. The source probe sees
+     * only the words looked at before limit short-circuits the traversal, in whole batches. A sample interval set after instrumenting applies when the
+     * traversal starts. A traversal asked again after its end is counted as exhausted once. Closing a probe unregisters its MBean.
+     */
+    @Test
+    public void test21() throws Exception {
+	StreamProbe.named("test21.words").reset();
+	StreamProbe.named("test21.long").reset();
+	List<String> longWords = Streams.instrument(Streams.instrument(Stream.of(WORDS), "test21.words").filter(w -> w.length() > 12), "test21.long")
+		.limit(1500).collect(toList());
+	Assert.assertThat(longWords.size(), is(1500));
+
+	StreamProbe words = StreamProbe.named("test21.words");
+	StreamProbe longer = StreamProbe.named("test21.long");
+	long looked = IntStream.range(0, WORDS.length).filter(i -> WORDS[i].length() > 12).skip(1499).findFirst().getAsInt() + 1;
+	Assert.assertThat(longer.getElements(), is(1024L));
+	Assert.assertThat(words.getElements(), is(looked - looked % 1024));
+	Assert.assertThat(words.getTraversals(), is(1L));
+	Assert.assertThat(words.getShortCircuitedTraversals(), is(1L));
+	Assert.assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(StreamProbe.objectName("test21.long"), "Elements"), is(1024L));
+	longer.close();
+	Assert.assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(StreamProbe.objectName("test21.long")), is(false));
+	Assert.assertThat(StreamProbe.named("test21.long"), not(sameInstance(longer)));
+	Assert.assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(StreamProbe.objectName("test21.long")), is(true));
+
+	StreamProbe iterated = new StreamProbe("test21.iterated");
+	Iterator<String> iterator = iterated.instrument(Stream.of(WORDS)).iterator();
+	while (iterator.hasNext()) {
+	    iterator.next();
+	}
+	Assert.assertThat(iterator.hasNext(), is(false));
+	Assert.assertThat(iterator.hasNext(), is(false));
+	Assert.assertThat(iterated.getElements(), is((long) WORDS.length));
+	Assert.assertThat(iterated.getTraversals(), is(1L));
+	Assert.assertThat(iterated.getExhaustedTraversals(), is(1L));
+	Assert.assertThat(iterated.getShortCircuitedTraversals(), is(0L));
+	StreamProbe drained = new StreamProbe("test21.drained");
+	Spliterator<Integer> spliterator = drained.instrument(Stream.of(1, 2)).spliterator();
+	spliterator.forEachRemaining(x -> {
+	});
+	Assert.assertThat(spliterator.tryAdvance(x -> Assert.fail()), is(false));
+	spliterator.forEachRemaining(x -> Assert.fail());
+	Assert.assertThat(drained.getExhaustedTraversals(), is(1L));
+	Assert.assertThat(drained.getShortCircuitedTraversals(), is(0L));
+
+	StreamProbe sampled = new StreamProbe("test21.sampled");
+	Stream<String> sampledWords = sampled.instrument(Stream.of(WORDS).parallel());
+	sampled.setSampleInterval(100);
+	Assert.assertThat(sampled.getSampleInterval(), is(128));
+	long count = sampledWords.filter(w -> w.length() > 12).count();
+	Assert.assertThat(count, is(1946L));
+	Assert.assertThat(sampled.getElements(), is((long) WORDS.length));
+	Assert.assertThat(sampled.getShortCircuitedTraversals(), is(0L));
+	Assert.assertThat(sampled.getTraversals(), is(sampled.getSplits() + 1));
+	Assert.assertThat(sampled.getSamples(), greaterThan(0L));
+	out.println(sampled + " mean downstream ns: " + sampled.getMeanDownstreamNanos());
+	sampled.setSampleInterval(1 << 30);
+	Assert.assertThat(sampled.getSampleInterval(), is(1 << 30));
+	try {
+	    sampled.setSampleInterval((1 << 30) + 1);
+	    Assert.fail();
+	} catch (IllegalArgumentException e) {
+	    Assert.assertThat(sampled.getSampleInterval(), is(1 << 30));
+	}
+
+	long snapshot1 = currentTimeMillis();
+	long plain = Stream.of(WORDS).filter(w -> w.length() > 12).count();
+	long snapshot2 = currentTimeMillis();
+	long probed = Streams.instrument(Stream.of(WORDS), "test21.words").filter(w -> w.length() > 12).count();
+	long snapshot3 = currentTimeMillis();
+	out.println("plain time: " + (snapshot2 - snapshot1));
+	out.println("instrumented time: " + (snapshot3 - snapshot2));
+	Assert.assertThat(probed, is(plain));
+    }
+
+    /**
+     * Compute the average of test10 in parallel without a shared counter, together with the variance and quantiles, and compare with exact values. Shifting
+     * every sample by a large constant must not change the variance. With few buckets, quantiles near zero are only bounded by the collapsed bucket.
+     */
+    @Test
+    public void test22() {
+	double[] samples = new Random(42).doubles(1000000).toArray();
+	double[] sorted = samples.clone();
+	Arrays.sort(sorted);
+	double mean = DoubleStream.of(samples).average().getAsDouble();
+	double variance = DoubleStream.of(samples).map(x -> (x - mean) * (x - mean)).sum() / (samples.length - 1);
+
+	DoubleStatistics statistics = DoubleStatistics.of(DoubleStream.of(samples).parallel(), 0.01);
+	Assert.assertThat(statistics.getCount(), is((long) samples.length));
+	Assert.assertThat(statistics.getMean(), closeTo(mean, 1e-12));
+	Assert.assertThat(statistics.getVariance(), closeTo(variance, 1e-12));
+	Assert.assertThat(statistics.getMin(), is(sorted[0]));
+	Assert.assertThat(statistics.getMax(), is(sorted[sorted.length - 1]));
+	for (double q : new double[] { 0.01, 0.25, 0.5, 0.9, 0.999 }) {
+	    double exact = sorted[(int) (q * (sorted.length - 1))];
+	    Assert.assertThat(statistics.getQuantile(q), closeTo(exact, exact * 0.01));
+	}
+
+	List<Double> boxed = DoubleStream.of(samples).boxed().collect(toList());
+	DoubleStatistics collected = boxed.parallelStream().collect(Collectors2.summarizing(x -> x));
+	Assert.assertThat(collected.getMean(), closeTo(mean, 1e-12));
+	Assert.assertThat(collected.getSum(), closeTo(mean * samples.length, 1e-6));
+
+	DoubleStatistics shifted = DoubleStatistics.of(DoubleStream.of(samples).parallel().map(x -> x + 1e9));
+	Assert.assertThat(shifted.getVariance(), closeTo(variance, 1e-6));
+
+	DoubleStatistics signed = DoubleStatistics.of(IntStream.rangeClosed(-1000, 1000).asDoubleStream().parallel(), 0.01);
+	Assert.assertThat(signed.getMedian(), is(0D));
+	Assert.assertThat(signed.getQuantile(0.25), closeTo(-500, 5));
+	Assert.assertThat(signed.getQuantile(0.75), closeTo(500, 5));
+
+	int maxBuckets = 64;
+	double gamma = (1 + 0.01) / (1 - 0.01);
+	double collapsedBound = sorted[sorted.length - 1] * Math.pow(gamma, 2 - maxBuckets);
+	QuantileSketch sequential = new QuantileSketch(0.01, maxBuckets);
+	DoubleStream.of(samples).forEach(sequential);
+	QuantileSketch parallel = DoubleStream.of(samples).parallel().collect(() -> new QuantileSketch(0.01, maxBuckets), QuantileSketch::accept,
+		QuantileSketch::combine);
+	for (QuantileSketch sketch : new QuantileSketch[] { sequential, parallel }) {
+	    for (double q : new double[] { 0.001, 0.01, 0.1, 0.25, 0.5, 0.9, 0.999 }) {
+		double exact = sorted[(int) (q * (sorted.length - 1))];
+		if (exact >= collapsedBound) {
+		    Assert.assertThat(sketch.getQuantile(q), closeTo(exact, exact * 0.01));
+		} else {
+		    Assert.assertThat(sketch.getQuantile(q), both(greaterThanOrEqualTo(exact * 0.99)).and(lessThanOrEqualTo(collapsedBound)));
+		}
+	    }
+	}
+	Assert.assertThat(sequential.getQuantile(0.01), greaterThan(sorted[(int) (0.01 * (sorted.length - 1))] * 1.01));
+    }
+
+    /**
+     * Join the lists of test9 into one list of its own and into a view that copies none of their elements, also for many lists in parallel, and walk the
+     * view chunk by chunk through its iterator and streams.
+     */
+    @Test
+    public void test23() {
+	ArrayList<Integer> first = IntStream.range(1, 11).boxed().collect(toCollection(ArrayList::new));
+	ArrayList<Integer> second = new ArrayList<>();
+	ArrayList<Integer> third = IntStream.rangeClosed(11, 30).boxed().collect(toCollection(ArrayList::new));
+	List<Integer> expected = IntStream.rangeClosed(1, 30).boxed().collect(toList());
+
+	Assert.assertThat(Stream.of(first, second, third).collect(Collectors2.concatenating()), is(expected));
+	ArrayList<Integer> mixed = Stream.of(first, new LinkedList<>(second), new TreeSet<>(third)).collect(Collectors2.concatenating());
+	Assert.assertThat(mixed, is(expected));
+	mixed.add(31);
+	Assert.assertThat(first.size(), is(10));
+	List<Integer> view = Stream.of(first, second, third).collect(Collectors2.chunked());
+	Assert.assertThat(new ChunkedList<Integer>(Arrays.asList(first, second, third)).toArrayList(), is(expected));
+	Assert.assertThat(view, is(expected));
+	Assert.assertThat(view.get(10), is(11));
+	Assert.assertThat(view.subList(8, 12), is(Arrays.asList(9, 10, 11, 12)));
+
+	List<List<Integer>> partitions = IntStream.range(0, 400).mapToObj(p -> IntStream.range(p * 500, (p + 1) * 500).boxed().collect(toList())).collect(toList());
+	long snapshot1 = currentTimeMillis();
+	List<Integer> reduced = partitions.stream().reduce(new ArrayList<>(), (a, b) -> {
+	    ArrayList<Integer> result = new ArrayList<>(a);
+	    result.addAll(b);
+	    return result;
+	}, (a, b) -> a);
+	long snapshot2 = currentTimeMillis();
+	List<Integer> concatenated = partitions.parallelStream().collect(Collectors2.concatenating());
+	long snapshot3 = currentTimeMillis();
+	List<Integer> chunked = partitions.parallelStream().collect(Collectors2.chunked());
+	long snapshot4 = currentTimeMillis();
+	out.println("reduce time: " + (snapshot2 - snapshot1));
+	out.println("concatenating time: " + (snapshot3 - snapshot2));
+	out.println("chunked time: " + (snapshot4 - snapshot3));
+
+	Assert.assertThat(concatenated, is(reduced));
+	Assert.assertThat(chunked, is(reduced));
+	Assert.assertThat(chunked.get(199999), is(199999));
+	Assert.assertThat(chunked.spliterator().hasCharacteristics(Spliterator.SUBSIZED), is(true));
+	Assert.assertThat(chunked.parallelStream().collect(toList()), is(reduced));
+	Assert.assertThat(chunked.parallelStream().mapToLong(x -> x).sum(), is(LongStream.range(0, 200000).sum()));
+	int next = 0;
+	for (int x : concatenated) {
+	    Assert.assertThat(x, is(next++));
+	}
+	Assert.assertThat(next, is(200000));
+    }
+
+    /**
+     * Instead of walking WORDS twice as in test3, record one pass and replay it: a second replay runs while the first is halfway, the source is pulled only
+     * once, segments beyond the memory limit go to disk, and sealing lets passed segments go, on disk too.
+     */
+    @Test
+    public void test24() {
+	LongAdder pulled = new LongAdder();
+	try (ReplayableStream<String> cache = new ReplayableStream<>(Stream.of(WORDS).peek(w -> pulled.increment()), 1024, 8,
+		ReplayableStream.Serializer.strings())) {
+	    Iterator<String> first = cache.replay().iterator();
+	    for (int i = 0; i < WORDS.length / 2; i++) {
+		Assert.assertThat(first.next(), is(WORDS[i]));
+	    }
+	    Assert.assertThat(pulled.sum(), is((long) WORDS.length / 2));
+	    Assert.assertThat(cache.replay().filter(w -> w.length() > 12).count(), is(1946L));
+	    Assert.assertThat(pulled.sum(), is((long) WORDS.length));
+	    Assert.assertThat(cache.segmentsInMemory(), lessThanOrEqualTo(8));
+
+	    Stream<String> second = cache.replay();
+	    cache.seal();
+	    for (int i = WORDS.length / 2; i < WORDS.length; i++) {
+		Assert.assertThat(first.next(), is(WORDS[i]));
+	    }
+	    Assert.assertThat(first.hasNext(), is(false));
+	    Assert.assertThat(cache.segmentsRetained(), is((int) cache.recorded() / 1024 + 1));
+	    Assert.assertThat(second.toArray(), is(WORDS));
+	    Assert.assertThat(cache.segmentsRetained(), is(1));
+	    Assert.assertThat(cache.spilledBytes(), is(0L));
+	    Assert.assertThat(pulled.sum(), is((long) WORDS.length));
+	}
+
+	try (ReplayableStream<String> cache = new ReplayableStream<>(IntStream.range(0, 100000).mapToObj(String::valueOf), 16, 2,
+		ReplayableStream.Serializer.strings())) {
+	    Iterator<String> lead = cache.replay().iterator();
+	    Iterator<String> trail = cache.replay().iterator();
+	    cache.seal();
+	    for (int i = 0; i < 50000; i++) {
+		lead.next();
+	    }
+	    long spilled = cache.spilledBytes();
+	    Assert.assertThat(spilled, greaterThan(0L));
+	    long maxSpilled = 0;
+	    for (int i = 0; i < 100000; i++) {
+		Assert.assertThat(trail.next(), is(String.valueOf(i)));
+		if (i >= 50000 - 1000 && lead.hasNext()) {
+		    lead.next();
+		}
+		if (i >= 50000) {
+		    maxSpilled = Math.max(maxSpilled, cache.spilledBytes());
+		}
+	    }
+	    Assert.assertThat(maxSpilled, lessThan(spilled / 2));
+	    Assert.assertThat(cache.segmentsRetained(), lessThanOrEqualTo(2));
+	}
+
+	try (ReplayableStream<Integer> cache = Streams.cache(IntStream.range(0, 100000).boxed())) {
+	    Assert.assertThat(cache.replay().limit(10).collect(toList()), is(IntStream.range(0, 10).boxed().collect(toList())));
+	    Assert.assertThat(cache.replay().mapToInt(x -> x).sum(), is(IntStream.range(0, 100000).sum()));
+	}
+    }
+
+    /**
+     * Probe the size of the streams of test7 without losing their elements: a sized stream is answered by its spliterator, a filtered one by buffering, and
+     * an infinite one by running out of budget, after which its elements still start from the first, or without buffering for a budget of no elements.
+     * Test isFinite with and without a time limit.
+     */
+    @Test
+    public void test25() {
+	SizeProbe<Integer> sized = Streams.probeSize(Stream.of(1, 2, 3, 4, 5), 0, 0);
+	Assert.assertThat(sized.toString(), is("EXACT(5)"));
+	Assert.assertThat(sized.getStream().collect(toList()), is(Arrays.asList(1, 2, 3, 4, 5)));
+
+	SizeProbe<String> filtered = Streams.probeSize(Stream.of(WORDS).filter(w -> w.length() > 12), 10000, Long.MAX_VALUE);
+	Assert.assertThat(filtered.getKind(), is(SizeProbe.Kind.EXACT));
+	Assert.assertThat(filtered.getSize(), is(1946L));
+	Assert.assertThat(filtered.getStream().count(), is(1946L));
+
+	AtomicInteger next = new AtomicInteger();
+	SizeProbe<Integer> infinite = Streams.probeSize(Stream.generate(next::getAndIncrement), 1000, Long.MAX_VALUE);
+	Assert.assertThat(infinite.toString(), is("AT_LEAST(1000)"));
+	Assert.assertThat(infinite.getStream().limit(2000).collect(toList()), is(IntStream.range(0, 2000).boxed().collect(toList())));
+	Assert.assertThat(Streams.probeSize(Stream.generate(() -> 1), 1000, 0).getKind(), is(SizeProbe.Kind.UNKNOWN));
+
+	Assert.assertThat(Streams.isFinite(Stream.generate(() -> 1), 0), is(false));
+	Assert.assertThat(Streams.isFinite(Stream.of(1, 2, 3, 4, 5), 0), is(true));
+	Assert.assertThat(Streams.isFinite(Stream.of(WORDS).filter(w -> w.length() > 12), 10_000_000_000L), is(true));
+	Assert.assertThat(Streams.isFinite(Streams.randomLongs(42L, 25214903917L, 11L, 1L << 48)), is(false));
+	Iterator<Integer> endless = Stream.generate(() -> 1).iterator();
+	Stream<Integer> claimsMaxSize = StreamSupport.stream(Spliterators.spliterator(endless, Long.MAX_VALUE, 0), false);
+	Assert.assertThat(Streams.probeSize(claimsMaxSize, 1000, Long.MAX_VALUE).toString(), is("AT_LEAST(1000)"));
+	SizeProbe<Integer> unprobed = Streams.probeSize(Stream.generate(next::getAndIncrement), 0, Long.MAX_VALUE);
+	Assert.assertThat(unprobed.toString(), is("UNKNOWN"));
+	Assert.assertThat(unprobed.getStream().findFirst().get(), is(2000));
+
+	long snapshot1 = currentTimeMillis();
+	Assert.assertThat(Streams.isFinite(Stream.generate(() -> 1)), is(false));
+	long snapshot2 = currentTimeMillis();
+	out.println("isFinite time on an infinite stream: " + (snapshot2 - snapshot1));
+    }
+
+    /**
+     * Merge sorted shards of WORDS lazily into one sorted stream, and interleave streams of different lengths round-robin, beyond the two streams of test8.
+     */
+    @Test
+    public void test26() {
+	int shards = 24;
+	List<List<String>> sorted = IntStream.range(0, shards).mapToObj(s -> IntStream.range(0, WORDS.length).filter(i -> i % shards == s)
+		.mapToObj(i -> WORDS[i]).sorted().collect(toList())).collect(toList());
+	List<String> expected = Stream.of(WORDS).sorted().collect(toList());
+	@SuppressWarnings("unchecked")
+	Stream<String>[] streams = sorted.stream().map(List::stream).toArray(Stream[]::new);
+	Assert.assertThat(Streams.mergeSorted(Comparator.naturalOrder(), streams).collect(toList()), is(expected));
+
+	AtomicInteger pulled = new AtomicInteger();
+	Stream<Integer> infiniteEven = Stream.iterate(0, x -> x + 2).peek(x -> pulled.incrementAndGet());
+	Stream<Integer> odd = Stream.iterate(1, x -> x + 2).limit(3);
+	Assert.assertThat(Streams.mergeSorted(Comparator.naturalOrder(), infiniteEven, odd).limit(8).collect(toList()), is(Arrays.asList(0, 1, 2, 3, 4, 5,
+		6, 8)));
+	Assert.assertThat(pulled.get(), is(6));
+	Assert.assertThat(Streams.mergeSorted(Comparator.<Integer> naturalOrder(), ExhaustionPolicy.STOP, Stream.of(1, 4, 7), Stream.of(2, 3))
+		.collect(toList()), is(Arrays.asList(1, 2, 3)));
+
+	Assert.assertThat(Streams.interleave(Stream.of(1, 4), Stream.of(2, 5, 7, 8), Stream.of(3, 6)).collect(toList()),
+		is(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8)));
+	Assert.assertThat(Streams.interleave(ExhaustionPolicy.STOP, Stream.of(1, 4), Stream.of(2, 5, 7, 8), Stream.of(3, 6)).collect(toList()),
+		is(Arrays.asList(1, 2, 3, 4, 5, 6)));
+    }
+
+    /**
+     * Group WORDS and ranges into chunks, sequentially and in parallel, with the same chunk boundaries either way; pass reusable chunks to a batch consumer;
+     * and compute rolling sums over sliding windows.
+     */
+    @Test
+    public void test27() {
+	List<List<String>> sequential = Streams.chunked(Stream.of(WORDS), 1000).collect(toList());
+	Assert.assertThat(sequential.size(), is((WORDS.length + 999) / 1000));
+	Assert.assertThat(sequential.get(0), is(Arrays.asList(WORDS).subList(0, 1000)));
+	Assert.assertThat(Streams.chunked(Stream.of(WORDS).parallel(), 1000).collect(toList()), is(sequential));
+	Assert.assertThat(Streams.chunked(Stream.of(WORDS).parallel().filter(w -> w.length() > 12), 10).flatMap(List::stream).collect(toList()),
+		is(Stream.of(WORDS).filter(w -> w.length() > 12).collect(toList())));
+	Assert.assertThat(Streams.chunked(Stream.of(WORDS).parallel().filter(w -> w.length() > 12), 10).filter(c -> c.size() < 10).count(), is(1L));
+
+	int[][] ints = Streams.chunked(IntStream.range(0, 100003).parallel(), 10).toArray(int[][]::new);
+	Assert.assertThat(ints.length, is(10001));
+	Assert.assertArrayEquals(ints[5000], IntStream.range(50000, 50010).toArray());
+	Assert.assertArrayEquals(ints[10000], new int[] { 100000, 100001, 100002 });
+	Assert.assertThat(Streams.chunked(LongStream.range(0, 100003).parallel(), 10).mapToLong(c -> LongStream.of(c).sum()).sum(),
+		is(LongStream.range(0, 100003).sum()));
+
+	List<Integer> lengths = new ArrayList<>();
+	Streams.forEachChunk(Stream.of(WORDS), 4096, chunk -> lengths.add(chunk.size()));
+	Assert.assertThat(lengths.stream().mapToInt(x -> x).sum(), is(WORDS.length));
+	LongAdder sum = new LongAdder();
+	Streams.forEachChunk(IntStream.range(0, 100003), 64, (chunk, length) -> {
+	    for (int i = 0; i < length; i++) {
+		sum.add(chunk[i]);
+	    }
+	});
+	Assert.assertThat(sum.sum(), is(LongStream.range(0, 100003).sum()));
+
+	Assert.assertThat(Streams.windowed(Stream.of(1, 2, 3, 4, 5, 6), 3, 1).map(w -> w.stream().mapToInt(x -> x).sum()).collect(toList()),
+		is(Arrays.asList(6, 9, 12, 15)));
+	Assert.assertThat(Streams.windowed(Stream.of(1, 2, 3, 4, 5, 6, 7), 2, 3).collect(toList()),
+		is(Arrays.asList(Arrays.asList(1, 2), Arrays.asList(4, 5))));
+	Assert.assertThat(Streams.windowed(IntStream.range(0, 20).boxed(), 2, 7).collect(toList()),
+		is(Arrays.asList(Arrays.asList(0, 1), Arrays.asList(7, 8), Arrays.asList(14, 15))));
+	Assert.assertThat(Streams.windowed(Stream.iterate(0, x -> x + 1), 3, 2).limit(2).collect(toList()),
+		is(Arrays.asList(Arrays.asList(0, 1, 2), Arrays.asList(2, 3, 4))));
+    }
+
+    /**
+     * Count the word frequencies of WORDS without a String or boxed count per distinct word, compare with groupingByConcurrent, and take the most frequent
+     * words and the merge of per-thread tables from the off-heap table. A negative number of top words and a table too large for an array are rejected.
+     */
+    @Test
+    public void test28() throws Exception {
+	Path path = Paths.get(BOOK_URL.toURI());
+	long snapshot1 = currentTimeMillis();
+	ConcurrentMap<String, Long> expected = Stream.of(WORDS).parallel().filter(w -> !w.isEmpty()).collect(groupingByConcurrent(w -> w, counting()));
+	long snapshot2 = currentTimeMillis();
+	WordFrequencies frequencies = WordFrequencies.of(path);
+	long snapshot3 = currentTimeMillis();
+	out.println("groupingByConcurrent time: " + (snapshot2 - snapshot1));
+	out.println("WordFrequencies time: " + (snapshot3 - snapshot2));
+
+	Assert.assertThat(frequencies.size(), is(expected.size()));
+	Assert.assertThat(frequencies.total(), is(expected.values().stream().mapToLong(x -> x).sum()));
+	Assert.assertThat(frequencies.count("Pierre"), is(expected.get("Pierre")));
+	Assert.assertThat(frequencies.count("Quixote"), is(0L));
+	LongAdder counted = new LongAdder();
+	frequencies.forEach((word, count) -> {
+	    if (word.remaining() == 6 && word.get(word.position()) == 'N') {
+		Assert.assertThat(count, is(expected.get(StandardCharsets.UTF_8.decode(word).toString())));
+	    }
+	    counted.add(count);
+	});
+	Assert.assertThat(counted.sum(), is(frequencies.total()));
+
+	Map<String, Long> top = frequencies.top(10);
+	Assert.assertThat(new ArrayList<>(top.values()), is(expected.values().stream().sorted(Comparator.reverseOrder()).limit(10).collect(toList())));
+	top.forEach((word, count) -> Assert.assertThat(count, is(expected.get(word))));
+
+	WordFrequencies first = new WordFrequencies();
+	WordFrequencies second = new WordFrequencies();
+	for (int i = 0; i < WORDS.length; i++) {
+	    if (!WORDS[i].isEmpty()) {
+		(i % 2 == 0 ? first : second).add(WORDS[i]);
+	    }
+	}
+	first.merge(second);
+	Assert.assertThat(first.size(), is(expected.size()));
+	Assert.assertThat(first.top(10), is(top));
+	Assert.assertThat(first.top(0).isEmpty(), is(true));
+	try {
+	    first.top(-1);
+	    Assert.fail();
+	} catch (IllegalArgumentException e) {
+	    Assert.assertThat(e.getMessage(), endsWith(": -1"));
+	}
+	try {
+	    new WordFrequencies(1 << 30);
+	    Assert.fail();
+	} catch (IllegalArgumentException e) {
+	    Assert.assertThat(e.getMessage(), endsWith(": " + (1 << 30)));
+	}
+    }
+
 }